@@ -0,0 +1,45 @@
+package com.example.benchmarks;
+
+import com.example.grpc.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic events shaped like production rows, shared by the benchmarks.
+ */
+public final class SampleEvents {
+
+    private static final String[] LOCATIONS = {"Paris", "Rome", "Berlin", "Lisbon", "Amsterdam Convention Centre"};
+
+    private SampleEvents() {
+    }
+
+    public static Event proto(long id) {
+        return Event.newBuilder()
+                .setId(id)
+                .setName("Event " + id + " annual meetup")
+                .setDate("2024-" + String.format("%02d-%02d", 1 + id % 12, 1 + id % 28))
+                .setLocation(LOCATIONS[(int) (id % LOCATIONS.length)])
+                .setVersion(id % 7)
+                .build();
+    }
+
+    public static List<Event> protos(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            events.add(proto(i));
+        }
+        return events;
+    }
+
+    public static List<com.example.domain.Event> entities(int count) {
+        List<com.example.domain.Event> events = new ArrayList<>(count);
+        for (Event source : protos(count)) {
+            com.example.domain.Event event = new com.example.domain.Event(source.getName(), source.getDate(), source.getLocation());
+            event.setId(source.getId());
+            events.add(event);
+        }
+        return events;
+    }
+}
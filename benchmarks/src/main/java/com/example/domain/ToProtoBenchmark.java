@@ -0,0 +1,45 @@
+package com.example.domain;
+
+import com.example.benchmarks.SampleEvents;
+import com.example.grpc.GetAllEventsResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the {@code GetAllEvents} response from entities, which the domain service does for the
+ * whole table on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToProtoBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    private List<Event> events;
+
+    @Setup
+    public void setUp() {
+        events = SampleEvents.entities(size);
+    }
+
+    @Benchmark
+    public GetAllEventsResponse toProto() {
+        GetAllEventsResponse.Builder response = GetAllEventsResponse.newBuilder();
+        for (Event event : events) {
+            response.addEvents(EventServiceGrpcImpl.toProto(event));
+        }
+        return response.build();
+    }
+
+    @Benchmark
+    public byte[] toProtoAndSerialize() {
+        return toProto().toByteArray();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.gateway.config;
+
+import com.example.benchmarks.SampleEvents;
+import com.example.grpc.Event;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of events: the protobuf serializer registered by {@link JacksonConfig}
+ * against copying each event into a {@code HashMap} first, as the controller used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventJsonBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Event> events;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JacksonConfig().grpcEventModule());
+        events = SampleEvents.protos(size);
+    }
+
+    @Benchmark
+    public byte[] protoSerializer() throws Exception {
+        return objectMapper.writeValueAsBytes(events);
+    }
+
+    @Benchmark
+    public byte[] mapCopyBaseline() throws Exception {
+        List<Map<String, Object>> maps = new ArrayList<>(events.size());
+        for (Event event : events) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("id", event.getId());
+            map.put("name", event.getName());
+            map.put("date", event.getDate());
+            map.put("location", event.getLocation());
+            map.put("version", event.getVersion());
+            maps.add(map);
+        }
+        return objectMapper.writeValueAsBytes(maps);
+    }
+}
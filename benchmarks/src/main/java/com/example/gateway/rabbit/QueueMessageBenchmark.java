@@ -0,0 +1,63 @@
+package com.example.gateway.rabbit;
+
+import com.example.domain.EventMessage;
+import com.example.grpc.EventOperation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Both ends of a queued write: the gateway building the message body in each
+ * {@link EventWriteBuffer.Format}, and the domain service parsing it back into an {@link EventMessage}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueMessageBenchmark {
+
+    private ObjectMapper objectMapper;
+    private EventWriteBuffer.PendingWrite write;
+    private byte[] json;
+    private byte[] protobuf;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("id", 42L);
+        eventData.put("name", "Event 42 annual meetup");
+        eventData.put("date", "2024-07-15");
+        eventData.put("location", "Amsterdam Convention Centre");
+        write = new EventWriteBuffer.PendingWrite("5f0c8a52-54b4-4c6e-9d4e-0c4f1f1b7a21", "UPDATE", 42L, eventData);
+
+        json = buildJson();
+        protobuf = buildProtobuf();
+    }
+
+    @Benchmark
+    public byte[] buildJson() throws Exception {
+        return objectMapper.writeValueAsBytes(write.toMap());
+    }
+
+    @Benchmark
+    public byte[] buildProtobuf() {
+        return write.toProto(Instant.now()).toByteArray();
+    }
+
+    @Benchmark
+    public EventMessage parseJson() throws Exception {
+        return EventMessage.fromJson(objectMapper.readTree(json));
+    }
+
+    @Benchmark
+    public EventMessage parseProtobuf() throws Exception {
+        return EventMessage.fromProto(EventOperation.parseFrom(protobuf));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.gateway.service;
+
+import com.example.benchmarks.SampleEvents;
+import com.example.gateway.config.JacksonConfig;
+import com.example.grpc.Event;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of one cached event in each {@link EventCacheCodec} format, with the
+ * {@code GenericJackson2JsonRedisSerializer} layout the cache used before as the baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCacheCodecBenchmark {
+
+    @Param({"PROTOBUF", "JSON"})
+    public EventCacheCodec.Format format;
+
+    private EventCacheCodec codec;
+    private GenericJackson2JsonRedisSerializer legacySerializer;
+    private Event event;
+    private Map<String, Object> legacyEvent;
+    private byte[] encoded;
+    private byte[] legacyEncoded;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JacksonConfig().grpcEventModule());
+        codec = new EventCacheCodec(objectMapper, new SimpleMeterRegistry(), format, 512);
+        legacySerializer = new GenericJackson2JsonRedisSerializer();
+
+        event = SampleEvents.proto(42);
+        legacyEvent = new HashMap<>();
+        legacyEvent.put("id", event.getId());
+        legacyEvent.put("name", event.getName());
+        legacyEvent.put("date", event.getDate());
+        legacyEvent.put("location", event.getLocation());
+
+        encoded = codec.encode(event);
+        legacyEncoded = legacySerializer.serialize(legacyEvent);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(event);
+    }
+
+    @Benchmark
+    public Event decode() {
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public byte[] legacyEncode() {
+        return legacySerializer.serialize(legacyEvent);
+    }
+
+    @Benchmark
+    public Object legacyDecode() {
+        return legacySerializer.deserialize(legacyEncoded);
+    }
+
+    @Benchmark
+    public Event legacyDecodeThroughCodec() {
+        return codec.decode(legacyEncoded);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+public final class AppConfig {
+    private static final Logger log = LoggerFactory.getLogger(AppConfig.class);
+
+    private static final String DEFAULTS_RESOURCE = "application.properties";
+    private static final Properties defaults = loadDefaults();
+
+    private AppConfig() {
+    }
+
+    /**
+     * Resolves {@code key} from a system property, then from the environment variable with the
+     * same name upper-cased and with dots/dashes replaced by underscores (so {@code rabbit.host}
+     * is read from {@code RABBIT_HOST}), then from {@code application.properties}.
+     */
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(toEnvName(key));
+        }
+        if (value == null) {
+            value = defaults.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    private static String toEnvName(String key) {
+        return key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_');
+    }
+
+    private static Properties loadDefaults() {
+        Properties properties = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(DEFAULTS_RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to load {}, using built-in defaults", DEFAULTS_RESOURCE, e);
+        }
+        return properties;
+    }
+}
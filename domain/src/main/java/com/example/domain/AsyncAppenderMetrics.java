@@ -0,0 +1,46 @@
+package com.example.domain;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.logstash.logback.appender.AsyncDisruptorAppender;
+import net.logstash.logback.appender.listener.AppenderListener;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+
+/**
+ * Counts the events each asynchronous appender on the root logger drops because its ring buffer is full.
+ */
+public class AsyncAppenderMetrics implements MeterBinder {
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders =
+                context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof AsyncDisruptorAppender appender) {
+                Counter dropped = Counter.builder("logging.events.dropped")
+                        .description("Log events dropped because the appender's ring buffer was full")
+                        .tag("appender", appender.getName())
+                        .register(registry);
+                appender.addListener(new DroppedEventCounter(dropped));
+            }
+        }
+    }
+
+    private record DroppedEventCounter(Counter dropped) implements AppenderListener<ILoggingEvent> {
+
+        @Override
+        public void eventAppendFailed(Appender<ILoggingEvent> appender, ILoggingEvent event, Throwable reason) {
+            dropped.increment();
+        }
+    }
+}
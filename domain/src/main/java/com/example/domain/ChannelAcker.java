@@ -0,0 +1,69 @@
+package com.example.domain;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the acks and nacks of one consumer channel from a single thread. A {@link Channel} must not
+ * be used concurrently, but every lane settles its own deliveries, so they queue them here instead.
+ * <p>
+ * Closing waits for the queued acks to go out; anything the broker never receives is redelivered.
+ */
+public class ChannelAcker implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ChannelAcker.class);
+
+    private final Channel channel;
+    private final ExecutorService sender;
+
+    public ChannelAcker(Channel channel) {
+        this.channel = channel;
+        this.sender = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "RabbitConsumerAcker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void ack(long deliveryTag, boolean multiple) {
+        send(deliveryTag, () -> channel.basicAck(deliveryTag, multiple));
+    }
+
+    public void nack(long deliveryTag, boolean requeue) {
+        send(deliveryTag, () -> channel.basicNack(deliveryTag, false, requeue));
+    }
+
+    private void send(long deliveryTag, ChannelCall call) {
+        try {
+            sender.execute(() -> {
+                try {
+                    call.run();
+                } catch (IOException | ShutdownSignalException e) {
+                    log.warn("Could not settle delivery {}, the broker will redeliver it", deliveryTag, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Channel already closed, delivery {} will be redelivered", deliveryTag);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        sender.shutdown();
+        if (!sender.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Pending acks were not sent before the channel closed");
+        }
+    }
+
+    private interface ChannelCall {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.domain;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fails calls with {@code RESOURCE_EXHAUSTED} while {@code maxConcurrentCalls} calls are already in progress,
+ * so a burst is shed straight away instead of queueing behind the bounded call executor.
+ */
+public class ConcurrencyLimitInterceptor implements ServerInterceptor {
+
+    private static final ServerCall.Listener<Object> NOOP_LISTENER = new ServerCall.Listener<>() {
+    };
+
+    private final int maxConcurrentCalls;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public ConcurrencyLimitInterceptor(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        Gauge.builder("grpc.server.calls.active", inFlight, AtomicInteger::get)
+                .description("gRPC calls currently in progress")
+                .register(Metrics.globalRegistry);
+        this.rejected = Counter.builder("grpc.server.calls.rejected")
+                .description("gRPC calls rejected because the concurrent call limit was reached")
+                .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (inFlight.incrementAndGet() > maxConcurrentCalls) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent calls"), new Metadata());
+            return (ServerCall.Listener<ReqT>) NOOP_LISTENER;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        };
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(call, headers);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    release.run();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    release.run();
+                }
+            }
+        };
+    }
+}
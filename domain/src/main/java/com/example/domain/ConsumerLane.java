@@ -0,0 +1,210 @@
+package com.example.domain;
+
+import com.rabbitmq.client.Delivery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded worker that applies the messages routed to it in arrival order. Messages for
+ * the same event id always land on the same lane, so their relative order is preserved while
+ * different lanes commit concurrently.
+ */
+public class ConsumerLane implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerLane.class);
+
+    private final EventRepository repository;
+    private final EventChangePublisher changePublisher;
+    private final RetryPublisher retryPublisher;
+    private final BlockingQueue<Item> queue;
+    private final int batchSize;
+    private final long batchMaxWaitMs;
+    private final boolean multipleAck;
+
+    private final DistributionSummary batchSizeSummary;
+    private final Timer batchCommitTimer;
+    private final Counter batchFallbackCounter;
+    private final Counter duplicateCounter;
+    private final Timer laneWaitTimer;
+
+    public ConsumerLane(EventRepository repository, EventChangePublisher changePublisher, RetryPublisher retryPublisher,
+                        int capacity, int batchSize, long batchMaxWaitMs, boolean multipleAck) {
+        this.repository = repository;
+        this.changePublisher = changePublisher;
+        this.retryPublisher = retryPublisher;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.batchMaxWaitMs = batchMaxWaitMs;
+        this.multipleAck = multipleAck;
+
+        this.batchSizeSummary = DistributionSummary.builder("event.consumer.batch.size")
+                .description("Messages applied per database transaction")
+                .register(Metrics.globalRegistry);
+        this.batchCommitTimer = Timer.builder("event.consumer.batch.commit")
+                .description("Time to apply and commit one batch of messages")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+        this.batchFallbackCounter = Counter.builder("event.consumer.batch.fallbacks")
+                .description("Batches that failed and were retried message by message")
+                .register(Metrics.globalRegistry);
+        this.duplicateCounter = Counter.builder("event.consumer.duplicates")
+                .description("Redelivered requests that had already been applied")
+                .register(Metrics.globalRegistry);
+        this.laneWaitTimer = Timer.builder("event.consumer.lane.wait")
+                .description("Time a received message waits in its lane before its batch is applied")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    public void submit(Item item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        log.debug("Consumer lane {} started", Thread.currentThread().getName());
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Item> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    processBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Unexpected error in consumer lane", e);
+            }
+        }
+        log.debug("Consumer lane {} stopped", Thread.currentThread().getName());
+    }
+
+    private List<Item> nextBatch() throws InterruptedException {
+        List<Item> batch = new ArrayList<>(batchSize);
+        Item first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchMaxWaitMs);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            Item next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void processBatch(List<Item> batch) {
+        List<EventMessage> messages = new ArrayList<>(batch.size());
+        long now = System.nanoTime();
+        for (Item item : batch) {
+            messages.add(item.message);
+            laneWaitTimer.record(now - item.receivedAt, TimeUnit.NANOSECONDS);
+        }
+
+        try {
+            publish(batchCommitTimer.record(() -> repository.applyAll(messages)));
+            batchSizeSummary.record(messages.size());
+            log.debug("Applied batch of {} messages", messages.size());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                handleFailure(batch.get(0), e);
+            } else {
+                log.warn("Batch of {} messages failed, falling back to per-message processing", messages.size(), e);
+                batchFallbackCounter.increment();
+                for (Item item : batch) {
+                    try {
+                        publish(repository.applyAll(List.of(item.message)));
+                    } catch (RuntimeException messageError) {
+                        handleFailure(item, messageError);
+                    }
+                }
+            }
+        }
+        ack(batch);
+    }
+
+    private void publish(List<EventResult> results) {
+        for (EventResult result : results) {
+            if (result.isDuplicate()) {
+                duplicateCounter.increment();
+            }
+        }
+        changePublisher.publish(results);
+    }
+
+    // the result is only reported once the message is dead-lettered; until then the request stays pending
+    private void handleFailure(Item item, RuntimeException error) {
+        String traceId = TraceIds.fromHeaders(item.delivery.getProperties().getHeaders());
+        if (traceId != null) {
+            MDC.put(TraceIds.MDC_KEY, traceId);
+        }
+        try {
+            log.error("Error handling message {}", item.message, error);
+            if (retryPublisher.retryOrDeadLetter(item.delivery, error)) {
+                changePublisher.publish(List.of(EventResult.failed(item.message, error.getMessage())));
+            }
+        } catch (IOException publishError) {
+            log.error("Could not schedule a retry for message {}, returning it to the queue", item.message, publishError);
+            item.requeue = true;
+        } finally {
+            MDC.remove(TraceIds.MDC_KEY);
+        }
+    }
+
+    private void ack(List<Item> batch) {
+        boolean anyRequeued = batch.stream().anyMatch(item -> item.requeue);
+        if (multipleAck && !anyRequeued) {
+            Item last = batch.get(batch.size() - 1);
+            last.acker.ack(last.deliveryTag, true);
+            return;
+        }
+        for (Item item : batch) {
+            if (item.requeue) {
+                item.acker.nack(item.deliveryTag, true);
+            } else {
+                item.acker.ack(item.deliveryTag, false);
+            }
+        }
+    }
+
+    public static class Item {
+        private final ChannelAcker acker;
+        private final long deliveryTag;
+        private final Delivery delivery;
+        private final EventMessage message;
+        private final long receivedAt = System.nanoTime();
+        private boolean requeue;
+
+        public Item(ChannelAcker acker, Delivery delivery, EventMessage message) {
+            this.acker = acker;
+            this.deliveryTag = delivery.getEnvelope().getDeliveryTag();
+            this.delivery = delivery;
+            this.message = message;
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.example.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_event_date", columnList = "event_date"),
+        @Index(name = "idx_events_location", columnList = "location")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Event {
 
     @Id
@@ -14,12 +24,21 @@ public class Event {
     private String date;
     private String location;
 
+    // typed copy of date for range queries; null when date is not an ISO-8601 calendar date
+    @Column(name = "event_date")
+    private LocalDate eventDate;
+
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private long version;
+
     public Event() {
     }
 
     public Event(String name, String date, String location) {
         this.name = name;
         this.date = date;
+        this.eventDate = parseDate(date);
         this.location = location;
     }
 
@@ -45,6 +64,11 @@ public class Event {
 
     public void setDate(String date) {
         this.date = date;
+        this.eventDate = parseDate(date);
+    }
+
+    public LocalDate getEventDate() {
+        return eventDate;
     }
 
     public String getLocation() {
@@ -54,4 +78,27 @@ public class Event {
     public void setLocation(String location) {
         this.location = location;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    static LocalDate parseDate(String date) {
+        if (date == null) return null;
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds a detached copy of a row that was written without loading the entity.
+     */
+    static Event snapshot(Object[] row) {
+        Event event = new Event((String) row[1], (String) row[2], (String) row[3]);
+        event.id = ((Number) row[0]).longValue();
+        event.version = ((Number) row[4]).longValue();
+        return event;
+    }
 }
@@ -0,0 +1,89 @@
+package com.example.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A committed change to one event row, published so that readers can update their caches with
+ * the authoritative state instead of the request that caused it.
+ */
+public class EventChange {
+
+    public enum Type { UPSERT, DELETE }
+
+    private final Type type;
+    private final String requestId;
+    private final long id;
+    private final long version;
+    private final String name;
+    private final String date;
+    private final String location;
+    private final long collectionVersion;
+
+    private EventChange(Type type, String requestId, long id, long version, String name, String date, String location,
+                        long collectionVersion) {
+        this.type = type;
+        this.requestId = requestId;
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.date = date;
+        this.location = location;
+        this.collectionVersion = collectionVersion;
+    }
+
+    public static EventChange upsert(String requestId, Event event, long collectionVersion) {
+        return new EventChange(Type.UPSERT, requestId, event.getId(), event.getVersion(),
+                event.getName(), event.getDate(), event.getLocation(), collectionVersion);
+    }
+
+    public static EventChange delete(String requestId, Event event, long collectionVersion) {
+        return new EventChange(Type.DELETE, requestId, event.getId(), event.getVersion(), null, null, null,
+                collectionVersion);
+    }
+
+    public byte[] toJson(ObjectMapper mapper) {
+        ObjectNode node = mapper.createObjectNode()
+                .put("type", type.name())
+                .put("requestId", requestId)
+                .put("id", id)
+                .put("version", version)
+                .put("collectionVersion", collectionVersion);
+        if (type == Type.UPSERT) {
+            node.put("name", name).put("date", date).put("location", location);
+        }
+        try {
+            return mapper.writeValueAsBytes(node);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot serialize change for event id=" + id, e);
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The {@link EventCollectionVersion} of the transaction that made this change.
+     */
+    public long getCollectionVersion() {
+        return collectionVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "EventChange{type=" + type + ", id=" + id + ", version=" + version + "}";
+    }
+}
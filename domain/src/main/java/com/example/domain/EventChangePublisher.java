@@ -0,0 +1,93 @@
+package com.example.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes committed {@link EventChange}s and per-request {@link EventResult}s to two fanout
+ * exchanges. Every lane shares one channel and publishes under its lock, so changes to the same
+ * event leave in commit order.
+ */
+public class EventChangePublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(EventChangePublisher.class);
+
+    public static final String EXCHANGE_NAME = "event-changes";
+    public static final String RESULTS_EXCHANGE_NAME = "event-results";
+
+    private static final AMQP.BasicProperties PROPERTIES = new AMQP.BasicProperties.Builder()
+            .contentType("application/json")
+            .deliveryMode(1)
+            .build();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Timer publishTimer;
+    private Channel channel;
+
+    public EventChangePublisher() {
+        this.publishedCounter = Counter.builder("event.changes.published")
+                .description("Committed event changes published for cache consumers")
+                .register(Metrics.globalRegistry);
+        this.failedCounter = Counter.builder("event.changes.publish.failures")
+                .description("Changes and results that could not be published")
+                .register(Metrics.globalRegistry);
+        this.publishTimer = Timer.builder("event.changes.publish")
+                .description("Time to publish the changes and results of one applied batch")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    public synchronized void open(Connection connection) throws IOException {
+        Channel opened = connection.createChannel();
+        opened.exchangeDeclare(EXCHANGE_NAME, BuiltinExchangeType.FANOUT, true);
+        opened.exchangeDeclare(RESULTS_EXCHANGE_NAME, BuiltinExchangeType.FANOUT, true);
+        this.channel = opened;
+        log.info("Publishing event changes to exchange '{}' and results to '{}'", EXCHANGE_NAME, RESULTS_EXCHANGE_NAME);
+    }
+
+    // a lost change only delays cache convergence until the entry's TTL, and a lost result only
+    // leaves the request pending until its status expires, so failures are not retried
+    public synchronized void publish(List<EventResult> results) {
+        long start = System.nanoTime();
+        for (EventResult result : results) {
+            EventChange change = result.getChange();
+            if (change != null && send(EXCHANGE_NAME, change.toJson(mapper), change)) {
+                publishedCounter.increment();
+            }
+            if (result.getRequestId() != null) {
+                send(RESULTS_EXCHANGE_NAME, result.toJson(mapper), result);
+            }
+        }
+        publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean send(String exchange, byte[] body, Object what) {
+        if (channel == null || !channel.isOpen()) {
+            failedCounter.increment();
+            log.warn("No open channel, dropping {}", what);
+            return false;
+        }
+        try {
+            channel.basicPublish(exchange, "", PROPERTIES, body);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failedCounter.increment();
+            log.warn("Failed to publish {}", what, e);
+            return false;
+        }
+    }
+}
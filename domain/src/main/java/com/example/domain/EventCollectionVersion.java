@@ -0,0 +1,32 @@
+package com.example.domain;
+
+import jakarta.persistence.*;
+
+/**
+ * Single-row counter bumped by every transaction that changes events, so that readers can tell
+ * whether a copy of the whole collection is still current without comparing its contents.
+ */
+@Entity
+@Table(name = "event_collection_version")
+public class EventCollectionVersion {
+
+    static final int ROW_ID = 1;
+
+    @Id
+    private int id;
+
+    @Column(nullable = false)
+    private long version;
+
+    public EventCollectionVersion() {
+    }
+
+    EventCollectionVersion(long version) {
+        this.id = ROW_ID;
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
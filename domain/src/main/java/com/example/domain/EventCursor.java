@@ -0,0 +1,73 @@
+package com.example.domain;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Forward-only cursor over all events in id order. It holds a read connection until closed, and is not
+ * thread-safe, but may be advanced from different threads one after another.
+ */
+public final class EventCursor implements AutoCloseable {
+
+    private final Connection connection;
+    private StatelessSession session;
+    private Transaction tx;
+    private ScrollableResults<Event> results;
+    private int visited;
+    private boolean closed;
+
+    EventCursor(int fetchSize) {
+        this.connection = HibernateUtil.getReadConnection();
+        try {
+            session = HibernateUtil.getSessionFactory().withStatelessOptions()
+                    .connection(connection)
+                    .openStatelessSession();
+            // pgjdbc only honours the fetch size inside a transaction, otherwise it buffers the whole result
+            tx = session.beginTransaction();
+            results = session.createQuery("from Event e order by e.id", Event.class)
+                    .setFetchSize(fetchSize)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the next event, or {@code null} once the cursor is exhausted.
+     */
+    public Event next() {
+        if (closed || !results.next()) {
+            return null;
+        }
+        visited++;
+        return results.get();
+    }
+
+    public int visited() {
+        return visited;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            if (results != null) results.close();
+            if (tx != null) tx.rollback();
+            if (session != null) session.close();
+        } finally {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                throw new HibernateException("Failed to release read connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.domain;
+
+import com.example.grpc.EventFields;
+import com.example.grpc.EventOperation;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventMessage {
+
+    private final String operation;
+    private final String requestId;
+    private final Long id;
+    private final String name;
+    private final String date;
+    private final String location;
+    private final List<String> coalescedRequestIds;
+    private final Instant acceptedAt;
+    private final boolean retry;
+
+    public EventMessage(String operation, String requestId, Long id, String name, String date, String location) {
+        this(operation, requestId, id, name, date, location, List.of());
+    }
+
+    public EventMessage(String operation, String requestId, Long id, String name, String date, String location,
+                        List<String> coalescedRequestIds) {
+        this(operation, requestId, id, name, date, location, coalescedRequestIds, null);
+    }
+
+    public EventMessage(String operation, String requestId, Long id, String name, String date, String location,
+                        List<String> coalescedRequestIds, Instant acceptedAt) {
+        this(operation, requestId, id, name, date, location, coalescedRequestIds, acceptedAt, false);
+    }
+
+    private EventMessage(String operation, String requestId, Long id, String name, String date, String location,
+                         List<String> coalescedRequestIds, Instant acceptedAt, boolean retry) {
+        this.operation = operation;
+        this.requestId = requestId;
+        this.id = id;
+        this.name = name;
+        this.date = date;
+        this.location = location;
+        this.coalescedRequestIds = coalescedRequestIds;
+        this.acceptedAt = acceptedAt;
+        this.retry = retry;
+    }
+
+    public static EventMessage fromJson(JsonNode root) {
+        JsonNode event = root.path("event");
+        return new EventMessage(
+                text(root, "operation"),
+                text(root, "requestId"),
+                event.hasNonNull("id") ? event.get("id").asLong() : null,
+                text(event, "name"),
+                text(event, "date"),
+                text(event, "location"),
+                textList(root, "coalescedRequestIds"),
+                root.hasNonNull("acceptedAt") ? Instant.parse(root.get("acceptedAt").asText()) : null);
+    }
+
+    public static EventMessage fromProto(EventOperation operation) {
+        EventFields event = operation.getEvent();
+        return new EventMessage(
+                operation.getOperation().name(),
+                operation.getRequestId().isEmpty() ? null : operation.getRequestId(),
+                event.hasId() ? event.getId() : null,
+                event.hasName() ? event.getName() : null,
+                event.hasDate() ? event.getDate() : null,
+                event.hasLocation() ? event.getLocation() : null,
+                List.copyOf(operation.getCoalescedRequestIdsList()),
+                operation.hasAcceptedAt()
+                        ? Instant.ofEpochSecond(operation.getAcceptedAt().getSeconds(), operation.getAcceptedAt().getNanos())
+                        : null);
+    }
+
+    private static List<String> textList(JsonNode node, String field) {
+        JsonNode values = node.path(field);
+        if (!values.isArray() || values.isEmpty()) {
+            return List.of();
+        }
+        List<String> list = new ArrayList<>(values.size());
+        values.forEach(value -> list.add(value.asText()));
+        return list;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Ids of earlier requests the gateway folded into this one; they share its outcome.
+     */
+    public List<String> getCoalescedRequestIds() {
+        return coalescedRequestIds;
+    }
+
+    /**
+     * When the gateway accepted the write, or {@code null} for messages from gateways that do not send it.
+     */
+    public Instant getAcceptedAt() {
+        return acceptedAt;
+    }
+
+    /**
+     * Whether this delivery came back from a retry queue, so writes published after it may already be applied.
+     */
+    public boolean isRetry() {
+        return retry;
+    }
+
+    public EventMessage asRetry() {
+        return new EventMessage(operation, requestId, id, name, date, location, coalescedRequestIds, acceptedAt, true);
+    }
+
+    @Override
+    public String toString() {
+        return "EventMessage{operation=" + operation + ", requestId=" + requestId + ", id=" + id + "}";
+    }
+}
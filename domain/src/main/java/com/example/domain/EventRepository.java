@@ -1,19 +1,39 @@
 package com.example.domain;
 
+import org.hibernate.Cache;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class EventRepository {
 
     private static final Logger log = LoggerFactory.getLogger(EventRepository.class);
 
+    private static final String EVENT_COLUMNS = "id, name, date, location, version";
+
+    private volatile Boolean supportsReturning;
+
     public Event findById(Long id) {
         log.debug("findById called with id={}", id);
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = HibernateUtil.openReadSession()) {
             Event event = session.get(Event.class, id);
             if (event == null) {
                 log.warn("Event with id={} not found", id);
@@ -24,16 +44,136 @@ public class EventRepository {
         }
     }
 
-    @SuppressWarnings("unchecked")
     public List<Event> findAll() {
         log.debug("findAll called");
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            List<Event> events = session.createQuery("from Event").list();
+        try (Session session = HibernateUtil.openReadSession()) {
+            List<Event> events = session.createQuery("from Event", Event.class)
+                    .setCacheable(true)
+                    .list();
             log.debug("Total events found: {}", events.size());
             return events;
         }
     }
 
+    public List<Event> findByIds(Collection<Long> ids) {
+        log.debug("findByIds called with {} ids", ids.size());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (Session session = HibernateUtil.openReadSession()) {
+            List<Event> events = session.createQuery("from Event e where e.id in :ids", Event.class)
+                    .setParameterList("ids", ids)
+                    .list();
+            log.debug("Events found by ids: {}", events.size());
+            return events;
+        }
+    }
+
+    /**
+     * Opens a cursor over all events in id order; the caller must close it.
+     */
+    public EventCursor openCursor(int fetchSize) {
+        log.debug("openCursor called with fetchSize={}", fetchSize);
+        return new EventCursor(fetchSize);
+    }
+
+    public List<Event> findPage(long afterId, int limit) {
+        log.debug("findPage called with afterId={}, limit={}", afterId, limit);
+        try (Session session = HibernateUtil.openReadSession()) {
+            List<Event> events = session.createQuery("from Event e where e.id > :afterId order by e.id", Event.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(limit)
+                    .list();
+            log.debug("Events found in page: {}", events.size());
+            return events;
+        }
+    }
+
+    /**
+     * Returns events matching every given filter, ordered by id and starting after {@code afterId}.
+     * {@code query} matches a substring of the name or location, case-insensitively.
+     */
+    public List<Event> search(String location, LocalDate from, LocalDate to, String query, long afterId, int limit) {
+        log.debug("search called with location={}, from={}, to={}, query={}, afterId={}, limit={}",
+                location, from, to, query, afterId, limit);
+        StringBuilder hql = new StringBuilder("from Event e where e.id > :afterId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("afterId", afterId);
+        if (location != null) {
+            hql.append(" and e.location = :location");
+            params.put("location", location);
+        }
+        if (from != null) {
+            hql.append(" and e.eventDate >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            hql.append(" and e.eventDate <= :to");
+            params.put("to", to);
+        }
+        if (query != null) {
+            hql.append(" and (e.name ilike :query escape '!' or e.location ilike :query escape '!')");
+            params.put("query", "%" + escapeLike(query) + "%");
+        }
+        hql.append(" order by e.id");
+
+        try (Session session = HibernateUtil.openReadSession()) {
+            Query<Event> search = session.createQuery(hql.toString(), Event.class);
+            params.forEach(search::setParameter);
+            List<Event> events = search.setMaxResults(limit).list();
+            log.debug("Events found by search: {}", events.size());
+            return events;
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Fills event_date for rows written before it existed, in id order and {@code batchSize} rows per
+     * transaction. Rows whose date is not an ISO-8601 date are left null.
+     */
+    public int backfillEventDates(int batchSize) {
+        int updated = 0;
+        long afterId = 0;
+        while (true) {
+            Transaction tx = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                tx = session.beginTransaction();
+                List<Object[]> rows = session.createNativeQuery(
+                                "select id, date from events where event_date is null and date is not null and id > :afterId order by id",
+                                Object[].class)
+                        .setParameter("afterId", afterId)
+                        .setMaxResults(batchSize)
+                        .list();
+                for (Object[] row : rows) {
+                    afterId = ((Number) row[0]).longValue();
+                    LocalDate eventDate = Event.parseDate((String) row[1]);
+                    if (eventDate != null) {
+                        updated += session.createNativeMutationQuery("update events set event_date = :eventDate where id = :id")
+                                .setParameter("eventDate", eventDate)
+                                .setParameter("id", afterId)
+                                .executeUpdate();
+                    }
+                }
+                tx.commit();
+                if (rows.size() < batchSize) {
+                    break;
+                }
+            } catch (Exception e) {
+                if (tx != null) tx.rollback();
+                log.error("Error while backfilling event dates after id={}", afterId, e);
+                throw e;
+            }
+        }
+        if (updated > 0) {
+            HibernateUtil.getSessionFactory().getCache().evictEntityData(Event.class);
+        }
+        log.info("Backfilled event_date for {} events", updated);
+        return updated;
+    }
+
     public void save(Event event) {
         log.debug("save called with event={}", event);
         Transaction tx = null;
@@ -83,4 +223,338 @@ public class EventRepository {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Applies the messages in one transaction and returns one result per message, in order.
+     * Messages whose request id was already processed are skipped, and every applied request is
+     * recorded in the same transaction. A retried update is rejected if a write the gateway accepted later
+     * was already applied to the same event. Results are built after commit so that changes carry the
+     * versions Hibernate assigned while flushing.
+     */
+    public List<EventResult> applyAll(List<EventMessage> messages) {
+        log.debug("applyAll called with {} messages", messages.size());
+        Transaction tx = null;
+        List<Supplier<EventResult>> results = new ArrayList<>(messages.size());
+        Batch batch = new Batch();
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            tx = session.beginTransaction();
+            Map<String, ProcessedRequest> processed = findProcessed(session, messages);
+            batch.lastAccepted = findLastAccepted(session, messages);
+            for (EventMessage message : messages) {
+                ProcessedRequest previous = message.getRequestId() != null ? processed.get(message.getRequestId()) : null;
+                if (previous != null) {
+                    log.info("Skipping already processed request {}", message.getRequestId());
+                    results.add(() -> EventResult.duplicate(message, previous.getEventId()));
+                    continue;
+                }
+                if (isSuperseded(message, batch)) {
+                    log.warn("Skipping retried {} of event {}: a later write was already applied",
+                            message.getOperation(), message.getId());
+                    results.add(() -> EventResult.failed(message, "Superseded by a later write"));
+                    continue;
+                }
+                results.add(apply(session, message, processed, batch));
+            }
+            tx.commit();
+            log.debug("Applied {} messages in one transaction", messages.size());
+        } catch (Exception e) {
+            if (tx != null) tx.rollback();
+            log.error("Error while applying {} messages", messages.size(), e);
+            throw e;
+        } finally {
+            evictPatched(batch.patched);
+        }
+        if (batch.changed) {
+            batch.collectionVersion = bumpCollectionVersion();
+        }
+
+        List<EventResult> committed = new ArrayList<>(results.size());
+        for (Supplier<EventResult> result : results) {
+            committed.add(result.get());
+        }
+        return committed;
+    }
+
+    public long findCollectionVersion() {
+        try (Session session = HibernateUtil.openReadSession()) {
+            EventCollectionVersion current = session.get(EventCollectionVersion.class, EventCollectionVersion.ROW_ID);
+            return current != null ? current.getVersion() : 0;
+        }
+    }
+
+    /**
+     * Advances the collection version in its own short transaction, after the batch has committed. The
+     * single version row is then locked only for this update rather than through every lane's flush and
+     * commit, and a reader that sees the new version is guaranteed to also see the batch. Returns 0 if the
+     * version could not be advanced; the gateway's snapshot TTL bounds how long that can go unnoticed.
+     */
+    private long bumpCollectionVersion() {
+        for (int attempt = 1; ; attempt++) {
+            Transaction tx = null;
+            try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+                tx = session.beginTransaction();
+                long version = bumpCollectionVersion(session);
+                tx.commit();
+                return version;
+            } catch (RuntimeException e) {
+                if (tx != null) tx.rollback();
+                // the first write creates the row, and a lane racing it loses once on the primary key
+                if (attempt == 2) {
+                    log.warn("Could not advance the event collection version", e);
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private long bumpCollectionVersion(Session session) {
+        // the synchronized entity keeps Hibernate from invalidating every cache region after the update
+        int updated = session.createNativeMutationQuery("update event_collection_version set version = version + 1 where id = :id")
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, EventCollectionVersion.class)
+                .setParameter("id", EventCollectionVersion.ROW_ID)
+                .executeUpdate();
+        if (updated == 0) {
+            session.persist(new EventCollectionVersion(1));
+            return 1;
+        }
+        return session.createNativeQuery("select version from event_collection_version where id = :id", Long.class)
+                .setParameter("id", EventCollectionVersion.ROW_ID)
+                .getSingleResult();
+    }
+
+    public int purgeProcessedRequests(Instant before) {
+        Transaction tx = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            tx = session.beginTransaction();
+            int purged = session.createMutationQuery("delete from ProcessedRequest p where p.processedAt < :before")
+                    .setParameter("before", before)
+                    .executeUpdate();
+            tx.commit();
+            log.debug("Purged {} processed request records older than {}", purged, before);
+            return purged;
+        } catch (Exception e) {
+            if (tx != null) tx.rollback();
+            log.error("Error while purging processed request records", e);
+            throw e;
+        }
+    }
+
+    private Map<String, ProcessedRequest> findProcessed(Session session, List<EventMessage> messages) {
+        Set<String> requestIds = new HashSet<>();
+        for (EventMessage message : messages) {
+            if (message.getRequestId() != null) {
+                requestIds.add(message.getRequestId());
+            }
+        }
+        Map<String, ProcessedRequest> processed = new HashMap<>();
+        if (requestIds.isEmpty()) {
+            return processed;
+        }
+        session.createQuery("from ProcessedRequest p where p.requestId in :ids", ProcessedRequest.class)
+                .setParameterList("ids", requestIds)
+                .list()
+                .forEach(p -> processed.put(p.getRequestId(), p));
+        return processed;
+    }
+
+    /**
+     * Returns, for each event a retried update in the batch targets, when the gateway accepted the latest
+     * write already applied to it. Only retried updates are checked, so batches without one skip the query.
+     */
+    private Map<Long, Instant> findLastAccepted(Session session, List<EventMessage> messages) {
+        Set<Long> eventIds = new HashSet<>();
+        for (EventMessage message : messages) {
+            if (isCheckedRetry(message)) {
+                eventIds.add(message.getId());
+            }
+        }
+        Map<Long, Instant> lastAccepted = new HashMap<>();
+        if (eventIds.isEmpty()) {
+            return lastAccepted;
+        }
+        session.createQuery("select p.eventId, max(p.acceptedAt) from ProcessedRequest p "
+                        + "where p.eventId in :ids and p.acceptedAt is not null group by p.eventId", Object[].class)
+                .setParameterList("ids", eventIds)
+                .list()
+                .forEach(row -> lastAccepted.put((Long) row[0], (Instant) row[1]));
+        return lastAccepted;
+    }
+
+    // a late delete still ends where in-order delivery would have, so only updates can be superseded
+    private static boolean isCheckedRetry(EventMessage message) {
+        return message.isRetry() && message.getId() != null && message.getAcceptedAt() != null
+                && ("UPDATE".equals(message.getOperation()) || "PATCH".equals(message.getOperation()));
+    }
+
+    private static boolean isSuperseded(EventMessage message, Batch batch) {
+        if (!isCheckedRetry(message)) {
+            return false;
+        }
+        Instant last = batch.lastAccepted.get(message.getId());
+        return last != null && last.isAfter(message.getAcceptedAt());
+    }
+
+    private void markProcessed(Session session, EventMessage message, Long eventId,
+                               Map<String, ProcessedRequest> processed, Batch batch) {
+        if (message.getAcceptedAt() != null && eventId != null) {
+            batch.lastAccepted.merge(eventId, message.getAcceptedAt(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        if (message.getRequestId() == null) return;
+
+        ProcessedRequest record = new ProcessedRequest(message.getRequestId(), eventId, message.getAcceptedAt());
+        session.persist(record);
+        processed.put(record.getRequestId(), record);
+    }
+
+    private Supplier<EventResult> apply(Session session, EventMessage message, Map<String, ProcessedRequest> processed,
+                                        Batch batch) {
+        switch (String.valueOf(message.getOperation())) {
+            case "CREATE" -> {
+                String missing = missingField(message);
+                if (missing != null) {
+                    log.warn("Rejecting CREATE without {}", missing);
+                    return () -> EventResult.failed(message, "Missing field: " + missing);
+                }
+                Event event = new Event(message.getName(), message.getDate(), message.getLocation());
+                session.persist(event);
+                markProcessed(session, message, event.getId(), processed, batch);
+                batch.changed = true;
+                log.info("Created event with ID={}", event.getId());
+                return () -> EventResult.succeeded(message,
+                        EventChange.upsert(message.getRequestId(), event, batch.collectionVersion));
+            }
+            case "UPDATE", "PATCH" -> {
+                // an UPDATE replaces every field, so it must carry all of them; only a PATCH may be sparse
+                String missing = "UPDATE".equals(message.getOperation()) ? missingField(message) : null;
+                if (missing != null) {
+                    log.warn("Rejecting UPDATE of event ID={} without {}", message.getId(), missing);
+                    return () -> EventResult.failed(message, "Missing field: " + missing);
+                }
+                Event updated = patch(session, message);
+                if (updated == null) {
+                    log.warn("Event with ID={} not found for update", message.getId());
+                    return () -> EventResult.failed(message, "Event not found");
+                }
+                batch.patched.add(updated.getId());
+                markProcessed(session, message, updated.getId(), processed, batch);
+                batch.changed = true;
+                log.info("Updated event with ID={} to version {}", message.getId(), updated.getVersion());
+                return () -> EventResult.succeeded(message,
+                        EventChange.upsert(message.getRequestId(), updated, batch.collectionVersion));
+            }
+            case "DELETE" -> {
+                Event existing = session.get(Event.class, message.getId());
+                if (existing == null) {
+                    log.warn("Event with ID={} not found for deletion", message.getId());
+                    return () -> EventResult.failed(message, "Event not found");
+                }
+                session.remove(existing);
+                markProcessed(session, message, existing.getId(), processed, batch);
+                batch.changed = true;
+                log.info("Deleted event with ID={}", message.getId());
+                return () -> EventResult.succeeded(message,
+                        EventChange.delete(message.getRequestId(), existing, batch.collectionVersion));
+            }
+            default -> {
+                log.warn("Unknown operation: {}", message.getOperation());
+                return () -> EventResult.failed(message, "Unknown operation: " + message.getOperation());
+            }
+        }
+    }
+
+    private static String missingField(EventMessage message) {
+        if (message.getName() == null) return "name";
+        if (message.getDate() == null) return "date";
+        if (message.getLocation() == null) return "location";
+        return null;
+    }
+
+    /**
+     * Writes only the fields present in the message with one {@code UPDATE ... WHERE id = ?}, without
+     * loading the entity first, and returns the updated row, or {@code null} if there is none.
+     */
+    private Event patch(Session session, EventMessage message) {
+        StringBuilder sql = new StringBuilder("update events set version = version + 1");
+        Map<String, Object> values = new HashMap<>();
+        if (message.getName() != null) values.put("name", message.getName());
+        if (message.getDate() != null) values.put("date", message.getDate());
+        if (message.getLocation() != null) values.put("location", message.getLocation());
+        for (String column : values.keySet()) {
+            sql.append(", ").append(column).append(" = :").append(column);
+        }
+        if (message.getDate() != null) {
+            LocalDate eventDate = Event.parseDate(message.getDate());
+            if (eventDate != null) {
+                sql.append(", event_date = :event_date");
+                values.put("event_date", eventDate);
+            } else {
+                sql.append(", event_date = null");
+            }
+        }
+        sql.append(" where id = :id");
+
+        // the native UPDATE does not flush the session, and earlier messages of the batch may still be pending in it
+        session.flush();
+        List<Object[]> rows;
+        if (supportsReturning(session)) {
+            NativeQuery<Object[]> update = session.createNativeQuery(sql + " returning " + EVENT_COLUMNS, Object[].class);
+            values.forEach(update::setParameter);
+            rows = update.setParameter("id", message.getId()).list();
+        } else {
+            // without the synchronized entity Hibernate would invalidate every cache region after the update
+            MutationQuery update = session.createNativeMutationQuery(sql.toString())
+                    .setHint(HibernateHints.HINT_NATIVE_SPACES, Event.class);
+            values.forEach(update::setParameter);
+            if (update.setParameter("id", message.getId()).executeUpdate() == 0) {
+                return null;
+            }
+            rows = session.createNativeQuery("select " + EVENT_COLUMNS + " from events where id = :id", Object[].class)
+                    .setParameter("id", message.getId())
+                    .list();
+        }
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        // the row changed behind Hibernate's back, so neither this session nor the L2 cache may keep an old copy
+        Object managed = managedEvent(session, message.getId());
+        if (managed != null) {
+            session.detach(managed);
+        }
+        HibernateUtil.getSessionFactory().getCache().evictEntityData(Event.class, message.getId());
+        return Event.snapshot(rows.get(0));
+    }
+
+    private static Object managedEvent(Session session, Long id) {
+        SessionImplementor source = session.unwrap(SessionImplementor.class);
+        EntityPersister persister = source.getFactory().getMappingMetamodel().getEntityDescriptor(Event.class);
+        return source.getPersistenceContextInternal().getEntity(source.generateEntityKey(id, persister));
+    }
+
+    // evicted again after commit, since a concurrent reader may have cached the old row in the meantime
+    private void evictPatched(Set<Long> patched) {
+        if (patched.isEmpty()) return;
+
+        Cache cache = HibernateUtil.getSessionFactory().getCache();
+        patched.forEach(id -> cache.evictEntityData(Event.class, id));
+        cache.evictDefaultQueryRegion();
+    }
+
+    private boolean supportsReturning(Session session) {
+        Boolean supported = supportsReturning;
+        if (supported == null) {
+            String product = session.doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+            supported = "PostgreSQL".equalsIgnoreCase(product);
+            supportsReturning = supported;
+            log.info("Database is {}, {} UPDATE ... RETURNING for partial updates", product, supported ? "using" : "not using");
+        }
+        return supported;
+    }
+
+    private static final class Batch {
+        private final Set<Long> patched = new HashSet<>();
+        private boolean changed;
+        private long collectionVersion;
+        private Map<Long, Instant> lastAccepted = new HashMap<>();
+    }
+}
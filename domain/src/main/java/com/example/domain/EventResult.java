@@ -0,0 +1,106 @@
+package com.example.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+
+/**
+ * Outcome of one queued write, reported back under the request id the gateway handed to the client.
+ */
+public class EventResult {
+
+    public enum Status { SUCCEEDED, FAILED }
+
+    private final String requestId;
+    private final List<String> coalescedRequestIds;
+    private final String operation;
+    private final Status status;
+    private final EventChange change;
+    private final Long eventId;
+    private final String error;
+    private final boolean duplicate;
+
+    private EventResult(String requestId, List<String> coalescedRequestIds, String operation, Status status, EventChange change, Long eventId,
+                        String error, boolean duplicate) {
+        this.requestId = requestId;
+        this.coalescedRequestIds = coalescedRequestIds;
+        this.operation = operation;
+        this.status = status;
+        this.change = change;
+        this.eventId = eventId;
+        this.error = error;
+        this.duplicate = duplicate;
+    }
+
+    public static EventResult succeeded(EventMessage message, EventChange change) {
+        return new EventResult(message.getRequestId(), message.getCoalescedRequestIds(), message.getOperation(), Status.SUCCEEDED,
+                change, change.getId(), null, false);
+    }
+
+    /**
+     * A request that was already applied earlier; it is reported again, but nothing changed this time.
+     */
+    public static EventResult duplicate(EventMessage message, Long eventId) {
+        return new EventResult(message.getRequestId(), message.getCoalescedRequestIds(), message.getOperation(), Status.SUCCEEDED,
+                null, eventId, null, true);
+    }
+
+    public static EventResult failed(EventMessage message, String error) {
+        return new EventResult(message.getRequestId(), message.getCoalescedRequestIds(), message.getOperation(), Status.FAILED,
+                null, message.getId(), error, false);
+    }
+
+    public byte[] toJson(ObjectMapper mapper) {
+        ObjectNode node = mapper.createObjectNode()
+                .put("requestId", requestId)
+                .put("operation", operation)
+                .put("status", status.name());
+        if (eventId != null) {
+            node.put("eventId", eventId);
+        }
+        if (change != null) {
+            node.put("version", change.getVersion());
+        }
+        if (error != null) {
+            node.put("error", error);
+        }
+        if (duplicate) {
+            node.put("duplicate", true);
+        }
+        if (!coalescedRequestIds.isEmpty()) {
+            ArrayNode coalesced = node.putArray("coalescedRequestIds");
+            coalescedRequestIds.forEach(coalesced::add);
+        }
+        try {
+            return mapper.writeValueAsBytes(node);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot serialize result of request " + requestId, e);
+        }
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * The committed change, or {@code null} if the request failed.
+     */
+    public EventChange getChange() {
+        return change;
+    }
+
+    public boolean isDuplicate() {
+        return duplicate;
+    }
+
+    @Override
+    public String toString() {
+        return "EventResult{requestId=" + requestId + ", status=" + status + ", eventId=" + eventId + "}";
+    }
+}
@@ -1,22 +1,38 @@
 package com.example.domain;
 
 import com.example.grpc.*;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 public class EventServiceGrpcImpl extends EventServiceGrpc.EventServiceImplBase {
 
     private static final Logger log = LoggerFactory.getLogger(EventServiceGrpcImpl.class);
 
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final EventRepository repository;
+    private final boolean compressAllEvents;
+    // each open stream holds a read connection, so only a few may run at once
+    private final int maxConcurrentStreams;
+    private final Semaphore streamPermits;
 
     public EventServiceGrpcImpl(EventRepository repository) {
         this.repository = repository;
+        this.compressAllEvents = AppConfig.getBoolean("grpc.server.compression.get-all-events", false);
+        this.maxConcurrentStreams = AppConfig.getInt("grpc.server.max-concurrent-streams", 4);
+        this.streamPermits = new Semaphore(maxConcurrentStreams);
     }
 
     @Override
@@ -43,14 +59,20 @@ public class EventServiceGrpcImpl extends EventServiceGrpc.EventServiceImplBase
     @Override
     public void getAllEvents(Empty request, StreamObserver<GetAllEventsResponse> responseObserver) {
         log.debug("gRPC getAllEvents called");
+        if (compressAllEvents) {
+            ((ServerCallStreamObserver<GetAllEventsResponse>) responseObserver).setCompression("gzip");
+        }
 
+        // read first, so a write landing in between can only make the label older than the data, never newer
+        long collectionVersion = repository.findCollectionVersion();
         List<com.example.grpc.Event> protoList = repository.findAll()
                 .stream()
-                .map(this::toProto)
+                .map(EventServiceGrpcImpl::toProto)
                 .collect(Collectors.toList());
 
         GetAllEventsResponse resp = GetAllEventsResponse.newBuilder()
                 .addAllEvents(protoList)
+                .setCollectionVersion(collectionVersion)
                 .build();
 
         responseObserver.onNext(resp);
@@ -58,13 +80,178 @@ public class EventServiceGrpcImpl extends EventServiceGrpc.EventServiceImplBase
         log.debug("Returned total {} events via gRPC", protoList.size());
     }
 
-    private com.example.grpc.Event toProto(com.example.domain.Event e) {
+    @Override
+    public void getEventsByIds(GetEventsByIdsRequest request, StreamObserver<GetAllEventsResponse> responseObserver) {
+        log.debug("gRPC getEventsByIds called with {} ids", request.getIdsCount());
+
+        GetAllEventsResponse.Builder resp = GetAllEventsResponse.newBuilder();
+        for (com.example.domain.Event event : repository.findByIds(request.getIdsList())) {
+            resp.addEvents(toProto(event));
+        }
+
+        responseObserver.onNext(resp.build());
+        responseObserver.onCompleted();
+        log.debug("Returned {} of {} requested events via gRPC", resp.getEventsCount(), request.getIdsCount());
+    }
+
+    @Override
+    public void streamAllEvents(Empty request, StreamObserver<com.example.grpc.Event> responseObserver) {
+        log.debug("gRPC streamAllEvents called");
+        ServerCallStreamObserver<com.example.grpc.Event> serverObserver =
+                (ServerCallStreamObserver<com.example.grpc.Event>) responseObserver;
+
+        if (!streamPermits.tryAcquire()) {
+            log.warn("Rejecting event stream, {} streams already open", maxConcurrentStreams);
+            serverObserver.onError(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Too many concurrent event streams")
+                    .asRuntimeException());
+            return;
+        }
+        EventCursor cursor;
+        try {
+            cursor = repository.openCursor(STREAM_FETCH_SIZE);
+        } catch (RuntimeException e) {
+            streamPermits.release();
+            throw e;
+        }
+        EventStream stream = new EventStream(serverObserver, cursor);
+        serverObserver.setOnCancelHandler(stream::cancel);
+        serverObserver.setOnReadyHandler(stream);
+    }
+
+    @Override
+    public void getEventsPage(GetEventsPageRequest request, StreamObserver<GetEventsPageResponse> responseObserver) {
+        int limit = request.getLimit() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(request.getLimit(), MAX_PAGE_SIZE);
+        log.debug("gRPC getEventsPage called with afterId={}, limit={}", request.getAfterId(), limit);
+
+        List<com.example.domain.Event> page = repository.findPage(request.getAfterId(), limit + 1);
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page = page.subList(0, limit);
+        }
+
+        GetEventsPageResponse.Builder resp = GetEventsPageResponse.newBuilder().setHasMore(hasMore);
+        for (com.example.domain.Event event : page) {
+            resp.addEvents(toProto(event));
+        }
+        if (!page.isEmpty()) {
+            resp.setNextAfterId(page.get(page.size() - 1).getId());
+        }
+
+        responseObserver.onNext(resp.build());
+        responseObserver.onCompleted();
+        log.debug("Returned page of {} events via gRPC, hasMore={}", page.size(), hasMore);
+    }
+
+    @Override
+    public void searchEvents(SearchEventsRequest request, StreamObserver<GetEventsPageResponse> responseObserver) {
+        int limit = request.getLimit() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(request.getLimit(), MAX_PAGE_SIZE);
+        log.debug("gRPC searchEvents called with location={}, from={}, to={}, query={}, afterId={}, limit={}",
+                request.getLocation(), request.getFrom(), request.getTo(), request.getQuery(), request.getAfterId(), limit);
+
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = request.getFrom().isEmpty() ? null : LocalDate.parse(request.getFrom());
+            to = request.getTo().isEmpty() ? null : LocalDate.parse(request.getTo());
+        } catch (DateTimeParseException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("from and to must be ISO-8601 dates")
+                    .asRuntimeException());
+            return;
+        }
+
+        List<com.example.domain.Event> page = repository.search(
+                emptyToNull(request.getLocation()), from, to, emptyToNull(request.getQuery()),
+                request.getAfterId(), limit + 1);
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page = page.subList(0, limit);
+        }
+
+        GetEventsPageResponse.Builder resp = GetEventsPageResponse.newBuilder().setHasMore(hasMore);
+        for (com.example.domain.Event event : page) {
+            resp.addEvents(toProto(event));
+        }
+        if (!page.isEmpty()) {
+            resp.setNextAfterId(page.get(page.size() - 1).getId());
+        }
+
+        responseObserver.onNext(resp.build());
+        responseObserver.onCompleted();
+        log.debug("Returned {} matching events via gRPC, hasMore={}", page.size(), hasMore);
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    // rows written before CREATE was validated can have NULL columns, which protobuf setters reject
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Sends events for as long as the transport will take them each time it becomes ready, then returns. A slow
+     * client therefore holds an open cursor but no call thread. gRPC runs the ready and cancel handlers of one
+     * call one at a time, so the cursor is never used concurrently.
+     */
+    private final class EventStream implements Runnable {
+
+        private final ServerCallStreamObserver<com.example.grpc.Event> observer;
+        private final EventCursor cursor;
+        private boolean done;
+
+        EventStream(ServerCallStreamObserver<com.example.grpc.Event> observer, EventCursor cursor) {
+            this.observer = observer;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public void run() {
+            if (done) return;
+            try {
+                while (observer.isReady()) {
+                    com.example.domain.Event event = cursor.next();
+                    if (event == null) {
+                        finish();
+                        observer.onCompleted();
+                        log.debug("Streamed total {} events via gRPC", cursor.visited());
+                        return;
+                    }
+                    observer.onNext(toProto(event));
+                }
+            } catch (RuntimeException e) {
+                log.error("Event stream failed after {} events", cursor.visited(), e);
+                finish();
+                observer.onError(Status.INTERNAL.withDescription("Event stream failed").asRuntimeException());
+            }
+        }
+
+        void cancel() {
+            if (done) return;
+            log.debug("streamAllEvents cancelled by client after {} events", cursor.visited());
+            finish();
+        }
+
+        private void finish() {
+            done = true;
+            try {
+                cursor.close();
+            } finally {
+                streamPermits.release();
+            }
+        }
+    }
+
+    static com.example.grpc.Event toProto(com.example.domain.Event e) {
         if (e == null) return null;
         return com.example.grpc.Event.newBuilder()
                 .setId(e.getId())
-                .setName(e.getName())
-                .setDate(e.getDate())
-                .setLocation(e.getLocation())
+                .setName(nullToEmpty(e.getName()))
+                .setDate(nullToEmpty(e.getDate()))
+                .setLocation(nullToEmpty(e.getLocation()))
+                .setVersion(e.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,76 @@
+package com.example.domain;
+
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the gRPC server from the {@code grpc.server.*} settings: a fixed-size call executor for the blocking
+ * Hibernate work, a concurrent call limit that sheds overload with {@code RESOURCE_EXHAUSTED}, the epoll
+ * transport where it is available, and the HTTP/2 keepalive and flow-control settings.
+ */
+public final class GrpcServerFactory {
+    private static final Logger log = LoggerFactory.getLogger(GrpcServerFactory.class);
+
+    private GrpcServerFactory() {
+    }
+
+    public static Server create(BindableService service) {
+        int port = AppConfig.getInt("grpc.server.port", 8081);
+        int threads = AppConfig.getInt("grpc.server.executor.threads", 32);
+        int maxConcurrentCalls = AppConfig.getInt("grpc.server.max-concurrent-calls", 256);
+
+        NettyServerBuilder builder = NettyServerBuilder.forPort(port)
+                .addService(service)
+                .executor(callExecutor(threads))
+                .maxConcurrentCallsPerConnection(AppConfig.getInt("grpc.server.max-concurrent-calls-per-connection", 128))
+                .keepAliveTime(AppConfig.getLong("grpc.server.keepalive.time-ms", 60_000), TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(AppConfig.getLong("grpc.server.keepalive.timeout-ms", 20_000), TimeUnit.MILLISECONDS)
+                // the gateway pings every 30s; the 5 minute default would answer that with GOAWAY
+                .permitKeepAliveTime(AppConfig.getLong("grpc.server.keepalive.permit-time-ms", 20_000), TimeUnit.MILLISECONDS)
+                .flowControlWindow(AppConfig.getInt("grpc.server.flow-control-window", 1024 * 1024))
+                .intercept(new ConcurrencyLimitInterceptor(maxConcurrentCalls))
+                .intercept(new GrpcMetricsInterceptor())
+                .intercept(new TraceIdInterceptor());
+
+        boolean epoll = AppConfig.getBoolean("grpc.server.native-transport", true) && Epoll.isAvailable();
+        Class<? extends ServerChannel> channelType = epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+        builder.channelType(channelType)
+                .bossEventLoopGroup(eventLoopGroup(epoll, 1, "grpc-boss"))
+                .workerEventLoopGroup(eventLoopGroup(epoll, 0, "grpc-worker"));
+
+        log.info("gRPC server on port {} using {} transport, {} call threads, at most {} concurrent calls",
+                port, epoll ? "epoll" : "nio", threads, maxConcurrentCalls);
+        return builder.build();
+    }
+
+    // the queue is left unbounded because the concurrent call limit already bounds the work that can reach it
+    private static ThreadPoolExecutor callExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "grpc-call-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static EventLoopGroup eventLoopGroup(boolean epoll, int threads, String name) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(name, true);
+        return epoll ? new EpollEventLoopGroup(threads, threadFactory) : new NioEventLoopGroup(threads, threadFactory);
+    }
+}
@@ -1,22 +1,73 @@
 package com.example.domain;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
 import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.HibernateMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
 public class HibernateUtil {
     private static final Logger log = LoggerFactory.getLogger(HibernateUtil.class);
 
+    private static final HikariDataSource writeDataSource = buildDataSource("write", false);
+    private static final HikariDataSource readDataSource = buildDataSource("read", true);
     private static final SessionFactory sessionFactory = buildSessionFactory();
 
+    private static HikariDataSource buildDataSource(String pool, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(pool);
+        config.setJdbcUrl(AppConfig.get("spring.datasource.url", "jdbc:postgresql://postgres:5432/mydb"));
+        config.setUsername(AppConfig.get("spring.datasource.username", "postgres"));
+        config.setPassword(AppConfig.get("spring.datasource.password", "postgres"));
+        config.setMaximumPoolSize(AppConfig.getInt("db.pool." + pool + ".size", 10));
+        config.setReadOnly(readOnly);
+        // write sessions always run inside a transaction, so skip the per-transaction autocommit toggle
+        config.setAutoCommit(readOnly);
+        config.setConnectionTimeout(AppConfig.getLong("db.pool.connection-timeout-ms", 2000));
+        config.setValidationTimeout(AppConfig.getLong("db.pool.validation-timeout-ms", 1000));
+        config.setKeepaliveTime(AppConfig.getLong("db.pool.keepalive-ms", 60000));
+        config.setMaxLifetime(AppConfig.getLong("db.pool.max-lifetime-ms", 1800000));
+        config.setLeakDetectionThreshold(AppConfig.getLong("db.pool.leak-detection-threshold-ms", 10000));
+
+        config.addDataSourceProperty("prepareThreshold", AppConfig.getInt("db.pgjdbc.prepare-threshold", 3));
+        config.addDataSourceProperty("preparedStatementCacheQueries",
+                AppConfig.getInt("db.pgjdbc.prepared-statement-cache-queries", 256));
+        config.addDataSourceProperty("preparedStatementCacheSizeMiB",
+                AppConfig.getInt("db.pgjdbc.prepared-statement-cache-size-mib", 5));
+
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(Metrics.globalRegistry));
+
+        log.info("Creating '{}' connection pool with maximumPoolSize={}", pool, config.getMaximumPoolSize());
+        return new HikariDataSource(config);
+    }
+
     private static SessionFactory buildSessionFactory() {
         try {
             log.debug("Building SessionFactory using hibernate.cfg.xml...");
             Configuration cfg = new Configuration();
             cfg.configure("hibernate.cfg.xml");
+            cfg.getProperties().put(AvailableSettings.DATASOURCE, writeDataSource);
+
+            boolean cacheEnabled = AppConfig.getBoolean("db.cache.enabled", true);
+            cfg.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, String.valueOf(cacheEnabled));
+            cfg.setProperty(AvailableSettings.USE_QUERY_CACHE, String.valueOf(cacheEnabled));
+            cfg.setProperty(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SessionMetricsListener.class.getName());
+
             SessionFactory factory = cfg.buildSessionFactory();
-            log.info("SessionFactory created successfully");
+            HibernateMetrics.monitor(Metrics.globalRegistry, factory, "domain", Tags.empty());
+            log.info("SessionFactory created successfully (second-level cache enabled={})", cacheEnabled);
             return factory;
         } catch (Exception e) {
             log.error("Error building SessionFactory", e);
@@ -27,4 +78,33 @@ public class HibernateUtil {
     public static SessionFactory getSessionFactory() {
         return sessionFactory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Opens a session bound to a connection from the read pool, so that lookups are never
+     * queued behind bulk writes. The connection is returned to the pool when the session closes.
+     */
+    public static Session openReadSession() {
+        Connection connection = getReadConnection();
+        return sessionFactory.withOptions()
+                .connection(connection)
+                .eventListeners(new SessionEventListener() {
+                    @Override
+                    public void end() {
+                        try {
+                            connection.close();
+                        } catch (SQLException e) {
+                            log.warn("Failed to return read connection to the pool", e);
+                        }
+                    }
+                })
+                .openSession();
+    }
+
+    public static Connection getReadConnection() {
+        try {
+            return readDataSource.getConnection();
+        } catch (SQLException e) {
+            throw new HibernateException("Failed to obtain a connection from the read pool", e);
+        }
+    }
+}
@@ -1,31 +1,59 @@
 package com.example.domain;
 
 import io.grpc.Server;
-import io.grpc.netty.NettyServerBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 public class Main {
     private static final Logger log = LoggerFactory.getLogger(Main.class);
 
     public static void main(String[] args) throws Exception {
         log.info("Starting Domain service...");
 
+        if (AppConfig.getBoolean("metrics.enabled", true)) {
+            MetricsServer.start(AppConfig.getInt("metrics.port", 9464));
+        }
+
         HibernateUtil.getSessionFactory();
+        SearchIndexInitializer.initialize(new EventRepository());
 
-        Server server = NettyServerBuilder.forPort(8081)
-                .addService(new EventServiceGrpcImpl(new EventRepository()))
-                .build()
-                .start();
+        Server server = GrpcServerFactory.create(new EventServiceGrpcImpl(new EventRepository())).start();
 
-        log.info("gRPC server started, listening on port 8081");
+        log.info("gRPC server started, listening on port {}", server.getPort());
 
         RabbitConsumer rabbitConsumer = new RabbitConsumer(new EventRepository());
         Thread consumerThread = new Thread(rabbitConsumer, "RabbitConsumerThread");
         consumerThread.start();
         log.info("RabbitConsumer thread started");
 
+        scheduleProcessedRequestPurge(new EventRepository());
+
         server.awaitTermination();
         log.info("gRPC server terminated");
     }
+
+    // request ids only need to be remembered for as long as the broker may redeliver them
+    private static void scheduleProcessedRequestPurge(EventRepository repository) {
+        Duration retention = Duration.ofHours(AppConfig.getLong("rabbit.consumer.dedupe.retention-hours", 24));
+        long intervalMinutes = AppConfig.getLong("rabbit.consumer.dedupe.purge-interval-minutes", 60);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ProcessedRequestPurge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                repository.purgeProcessedRequests(Instant.now().minus(retention));
+            } catch (RuntimeException e) {
+                log.warn("Purging processed request records failed", e);
+            }
+        }, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.example.domain;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Marks a queued request as applied. It is written in the same transaction as the change itself,
+ * so a redelivered message is recognised and skipped instead of being applied twice.
+ */
+@Entity
+@Table(name = "processed_requests", indexes = {
+        @Index(name = "idx_processed_requests_processed_at", columnList = "processed_at"),
+        @Index(name = "idx_processed_requests_event_id", columnList = "event_id")
+})
+public class ProcessedRequest {
+
+    @Id
+    @Column(name = "request_id", length = 64)
+    private String requestId;
+
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "processed_at", nullable = false)
+    private Instant processedAt;
+
+    @Column(name = "accepted_at")
+    private Instant acceptedAt;
+
+    public ProcessedRequest() {
+    }
+
+    public ProcessedRequest(String requestId, Long eventId, Instant acceptedAt) {
+        this.requestId = requestId;
+        this.eventId = eventId;
+        this.processedAt = Instant.now();
+        this.acceptedAt = acceptedAt;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public Instant getProcessedAt() {
+        return processedAt;
+    }
+
+    public Instant getAcceptedAt() {
+        return acceptedAt;
+    }
+}
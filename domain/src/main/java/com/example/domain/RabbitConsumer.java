@@ -1,40 +1,81 @@
 package com.example.domain;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.example.grpc.EventOperation;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RabbitConsumer implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(RabbitConsumer.class);
 
     private static final String QUEUE_NAME = "event-queue";
-    private static final String RABBIT_HOST = "rabbitmq";
-    private static final int RABBIT_PORT = 5672;
     private static final String RABBIT_USER = "guest";
     private static final String RABBIT_PASS = "guest";
+    private static final String PROTOBUF_CONTENT_TYPE = "application/x-protobuf";
 
-    private final EventRepository repository;
     private final ObjectMapper mapper;
 
+    private final int prefetch;
+    private final List<ConsumerLane> lanes;
+    private final EventChangePublisher changePublisher = new EventChangePublisher();
+    private final RetryPublisher retryPublisher = new RetryPublisher(QUEUE_NAME);
+    private final AtomicLong unkeyedCounter = new AtomicLong();
+    private final Timer queueLatencyTimer;
+
     public RabbitConsumer(EventRepository repository) {
-        this.repository = repository;
         this.mapper = new ObjectMapper();
+
+        this.prefetch = AppConfig.getInt("rabbit.consumer.prefetch", 250);
+        int workers = AppConfig.getInt("rabbit.consumer.workers", 4);
+        int batchSize = AppConfig.getBoolean("rabbit.consumer.batch.enabled", true)
+                ? AppConfig.getInt("rabbit.consumer.batch.size", 100)
+                : 1;
+        long batchMaxWaitMs = AppConfig.getLong("rabbit.consumer.batch.max-wait-ms", 50);
+
+        // with a single lane every earlier delivery is already settled, so one multi-ack is safe
+        boolean multipleAck = workers == 1;
+        this.lanes = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            lanes.add(new ConsumerLane(repository, changePublisher, retryPublisher, prefetch, batchSize, batchMaxWaitMs, multipleAck));
+        }
+
+        this.queueLatencyTimer = Timer.builder("event.consumer.queue.latency")
+                .description("Time from the gateway accepting a write to the domain receiving it")
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+        Gauge.builder("event.consumer.pending", lanes, l -> l.stream().mapToInt(ConsumerLane::pending).sum())
+                .description("Messages received but not yet applied")
+                .register(Metrics.globalRegistry);
+        log.info("RabbitConsumer configured with prefetch={}, workers={}, batchSize={}, batchMaxWaitMs={}",
+                prefetch, workers, batchSize, batchMaxWaitMs);
     }
 
     @Override
     public void run() {
         log.info("RabbitConsumer is starting...");
 
+        for (int i = 0; i < lanes.size(); i++) {
+            new Thread(lanes.get(i), "RabbitConsumerLane-" + i).start();
+        }
+
         ConnectionFactory factory = new ConnectionFactory();
-        factory.setHost(RABBIT_HOST);
-        factory.setPort(RABBIT_PORT);
+        factory.setHost(AppConfig.get("rabbit.host", "rabbitmq"));
+        factory.setPort(AppConfig.getInt("rabbit.port", 5672));
         factory.setUsername(RABBIT_USER);
         factory.setPassword(RABBIT_PASS);
 
@@ -43,24 +84,22 @@ public class RabbitConsumer implements Runnable {
 
         while (maxRetries > 0) {
             try (Connection connection = factory.newConnection();
-                 Channel channel = connection.createChannel()) {
+                 Channel channel = connection.createChannel();
+                 ChannelAcker acker = new ChannelAcker(channel)) {
 
                 channel.queueDeclare(QUEUE_NAME, true, false, false, null);
+                changePublisher.open(connection);
+                retryPublisher.open(connection);
+                channel.basicQos(prefetch);
                 log.info("RabbitConsumer waiting for messages on queue '{}'", QUEUE_NAME);
 
-                DeliverCallback deliverCallback = (consumerTag, delivery) -> {
-                    String msg = new String(delivery.getBody(), StandardCharsets.UTF_8);
-                    log.info("Received message: {}", msg);
-                    handleMessage(msg);
-                    channel.basicAck(delivery.getEnvelope().getDeliveryTag(), false);
-                };
+                DeliverCallback deliverCallback = (consumerTag, delivery) -> dispatch(acker, delivery);
                 CancelCallback cancelCallback = consumerTag -> {
                     log.warn("Consumer cancelled: {}", consumerTag);
                 };
 
                 channel.basicConsume(QUEUE_NAME, false, deliverCallback, cancelCallback);
 
-
                 while (!Thread.currentThread().isInterrupted()) {
                     Thread.sleep(1000);
                 }
@@ -81,47 +120,63 @@ public class RabbitConsumer implements Runnable {
         log.error("RabbitConsumer failed to connect to RabbitMQ after multiple retries. Shutting down.");
     }
 
-    private void handleMessage(String json) {
+    private void dispatch(ChannelAcker acker, Delivery delivery) throws IOException {
+        String traceId = TraceIds.fromHeaders(delivery.getProperties().getHeaders());
+        if (traceId != null) {
+            MDC.put(TraceIds.MDC_KEY, traceId);
+        }
         try {
-            JsonNode root = mapper.readTree(json);
-            String operation = root.get("operation").asText();
-            JsonNode eventNode = root.get("event");
-
-            log.debug("Handling message with operation={}", operation);
-
-            switch (operation) {
-                case "CREATE" -> {
-                    Event event = new Event();
-                    event.setName(eventNode.get("name").asText());
-                    event.setDate(eventNode.get("date").asText());
-                    event.setLocation(eventNode.get("location").asText());
-                    repository.save(event);
-                    log.info("Created event with ID={}", event.getId());
-                }
-                case "UPDATE" -> {
-                    Long id = eventNode.get("id").asLong();
-                    Event existing = repository.findById(id);
-                    if (existing != null) {
-                        existing.setName(eventNode.get("name").asText());
-                        existing.setDate(eventNode.get("date").asText());
-                        existing.setLocation(eventNode.get("location").asText());
-                        repository.update(existing);
-                        log.info("Updated event with ID={}", id);
-                    } else {
-                        log.warn("Event with ID={} not found for update", id);
-                    }
-                }
-                case "DELETE" -> {
-                    Long id = eventNode.get("id").asLong();
-                    repository.delete(id);
-                    log.info("Deleted event with ID={}", id);
-                }
-                default -> {
-                    log.warn("Unknown operation: {}", operation);
+            EventMessage message;
+            try {
+                message = parse(delivery);
+            } catch (IOException e) {
+                // retrying cannot fix a malformed message, so it goes straight to the dead-letter queue
+                try {
+                    retryPublisher.deadLetter(delivery, e);
+                } catch (IOException publishError) {
+                    log.error("Could not dead-letter malformed message, returning it to the queue", publishError);
+                    acker.nack(delivery.getEnvelope().getDeliveryTag(), true);
+                    return;
                 }
+                acker.ack(delivery.getEnvelope().getDeliveryTag(), false);
+                return;
+            }
+            if (RetryPublisher.attemptOf(delivery) > 0) {
+                message = message.asRetry();
+            }
+
+            try {
+                laneFor(message).submit(new ConsumerLane.Item(acker, delivery, message));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while dispatching message " + message, e);
+            }
+        } finally {
+            MDC.remove(TraceIds.MDC_KEY);
+        }
+    }
+
+    private ConsumerLane laneFor(EventMessage message) {
+        long key = message.getId() != null ? message.getId() : unkeyedCounter.getAndIncrement();
+        return lanes.get(Math.floorMod(Long.hashCode(key), lanes.size()));
+    }
+
+    // JSON stays accepted so that gateways still publishing it can be rolled over gradually
+    private EventMessage parse(Delivery delivery) throws IOException {
+        if (PROTOBUF_CONTENT_TYPE.equals(delivery.getProperties().getContentType())) {
+            EventOperation operation = EventOperation.parseFrom(delivery.getBody());
+            if (operation.hasAcceptedAt()) {
+                Instant acceptedAt = Instant.ofEpochSecond(
+                        operation.getAcceptedAt().getSeconds(), operation.getAcceptedAt().getNanos());
+                queueLatencyTimer.record(Duration.between(acceptedAt, Instant.now()));
             }
-        } catch (Exception e) {
-            log.error("Error handling message", e);
+            EventMessage message = EventMessage.fromProto(operation);
+            log.debug("Received message: {}", message);
+            return message;
         }
+
+        String msg = new String(delivery.getBody(), StandardCharsets.UTF_8);
+        log.debug("Received message: {}", msg);
+        return EventMessage.fromJson(mapper.readTree(msg));
     }
 }
@@ -0,0 +1,147 @@
+package com.example.domain;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Delivery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends messages that failed to apply back to the work queue after a delay, and parks them on a
+ * dead-letter queue once they run out of attempts. Each delay is its own queue whose messages expire
+ * into the work queue, so a waiting retry never blocks the messages behind it.
+ */
+public class RetryPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryPublisher.class);
+
+    static final String RETRY_COUNT_HEADER = "x-retry-count";
+    static final String ERROR_HEADER = "x-last-error";
+
+    private final String queueName;
+    private final String deadLetterQueueName;
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final double multiplier;
+    private final long confirmTimeoutMs;
+
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+    private Channel channel;
+    private volatile boolean returned;
+
+    public RetryPublisher(String queueName) {
+        this.queueName = queueName;
+        this.deadLetterQueueName = queueName + ".dlq";
+        this.maxAttempts = AppConfig.getInt("rabbit.consumer.retry.max-attempts", 3);
+        this.initialDelayMs = AppConfig.getLong("rabbit.consumer.retry.initial-delay-ms", 1000);
+        this.multiplier = Double.parseDouble(AppConfig.get("rabbit.consumer.retry.multiplier", "2"));
+        this.confirmTimeoutMs = AppConfig.getLong("rabbit.consumer.retry.confirm-timeout-ms", 5000);
+
+        this.retriedCounter = Counter.builder("event.consumer.retries")
+                .description("Messages scheduled for another attempt after a failure")
+                .register(Metrics.globalRegistry);
+        this.deadLetteredCounter = Counter.builder("event.consumer.dead-lettered")
+                .description("Messages moved to the dead-letter queue")
+                .register(Metrics.globalRegistry);
+    }
+
+    public synchronized void open(Connection connection) throws IOException {
+        Channel opened = connection.createChannel();
+        // the caller acks the original delivery once send returns, so the copy must be confirmed and routed
+        opened.confirmSelect();
+        opened.addReturnListener(unroutable -> returned = true);
+        opened.queueDeclare(deadLetterQueueName, true, false, false, null);
+        for (int attempt = 1; attempt < maxAttempts; attempt++) {
+            long delay = delayFor(attempt);
+            Map<String, Object> args = new HashMap<>();
+            args.put("x-message-ttl", delay);
+            args.put("x-dead-letter-exchange", "");
+            args.put("x-dead-letter-routing-key", queueName);
+            opened.queueDeclare(retryQueueName(delay), true, false, false, args);
+        }
+        this.channel = opened;
+        log.info("Retrying failed messages up to {} attempts, dead-lettering to '{}'", maxAttempts, deadLetterQueueName);
+    }
+
+    /**
+     * Schedules another attempt for a failed delivery, or dead-letters it when it has none left.
+     *
+     * @return {@code true} if the message was dead-lettered and will not be seen again
+     * @throws IOException if the broker did not confirm the republished message; the caller must not ack it
+     */
+    public synchronized boolean retryOrDeadLetter(Delivery delivery, Exception error) throws IOException {
+        int attempt = attemptOf(delivery) + 1;
+        if (attempt >= maxAttempts) {
+            deadLetter(delivery, error);
+            return true;
+        }
+
+        long delay = delayFor(attempt);
+        send(retryQueueName(delay), delivery, attempt, error);
+        retriedCounter.increment();
+        log.warn("Retrying message in {}ms (attempt {} of {})", delay, attempt + 1, maxAttempts);
+        return false;
+    }
+
+    /**
+     * Moves a delivery straight to the dead-letter queue, e.g. because it cannot be parsed.
+     */
+    public synchronized void deadLetter(Delivery delivery, Exception error) throws IOException {
+        send(deadLetterQueueName, delivery, attemptOf(delivery), error);
+        deadLetteredCounter.increment();
+        log.error("Moved message to dead-letter queue '{}'", deadLetterQueueName, error);
+    }
+
+    private void send(String routingKey, Delivery delivery, int attempt, Exception error) throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            throw new IOException("No open channel to republish failed message");
+        }
+        AMQP.BasicProperties original = delivery.getProperties();
+        Map<String, Object> headers = original.getHeaders() != null
+                ? new HashMap<>(original.getHeaders())
+                : new HashMap<>();
+        headers.put(RETRY_COUNT_HEADER, attempt);
+        headers.put(ERROR_HEADER, String.valueOf(error.getMessage()));
+        AMQP.BasicProperties properties = original.builder()
+                .headers(headers)
+                .deliveryMode(2)
+                .build();
+        returned = false;
+        channel.basicPublish("", routingKey, true, properties, delivery.getBody());
+        try {
+            // a return for a mandatory publish always arrives before its confirm
+            channel.waitForConfirmsOrDie(confirmTimeoutMs);
+        } catch (TimeoutException e) {
+            throw new IOException("Broker did not confirm republished message to '" + routingKey + "'", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the broker to confirm", e);
+        }
+        if (returned) {
+            throw new IOException("No queue '" + routingKey + "' to republish failed message to");
+        }
+    }
+
+    private long delayFor(int attempt) {
+        return (long) (initialDelayMs * Math.pow(multiplier, attempt - 1));
+    }
+
+    private String retryQueueName(long delay) {
+        return queueName + ".retry." + delay + "ms";
+    }
+
+    static int attemptOf(Delivery delivery) {
+        Map<String, Object> headers = delivery.getProperties().getHeaders();
+        Object value = headers != null ? headers.get(RETRY_COUNT_HEADER) : null;
+        return value instanceof Number n ? n.intValue() : 0;
+    }
+}
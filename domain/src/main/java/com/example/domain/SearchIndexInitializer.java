@@ -0,0 +1,54 @@
+package com.example.domain;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Prepares the events table for {@link EventRepository#search}: backfills the typed event_date
+ * column and, on PostgreSQL, adds pg_trgm indexes so that substring search does not scan the table.
+ * The plain B-tree indexes are declared on {@link Event} and created by Hibernate.
+ */
+public class SearchIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    private static final List<String> TRIGRAM_INDEXES = List.of(
+            "create extension if not exists pg_trgm",
+            "create index if not exists idx_events_name_trgm on events using gin (name gin_trgm_ops)",
+            "create index if not exists idx_events_location_trgm on events using gin (location gin_trgm_ops)");
+
+    public static void initialize(EventRepository repository) {
+        repository.backfillEventDates(AppConfig.getInt("db.search.backfill-batch-size", 1000));
+        if (!AppConfig.getBoolean("db.search.trigram-indexes", true)) {
+            return;
+        }
+
+        Transaction tx = null;
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            String product = session.doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equalsIgnoreCase(product)) {
+                log.info("Skipping trigram indexes on {}", product);
+                return;
+            }
+            tx = session.beginTransaction();
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (String ddl : TRIGRAM_INDEXES) {
+                        statement.execute(ddl);
+                    }
+                }
+            });
+            tx.commit();
+            log.info("Trigram indexes for event search are in place");
+        } catch (Exception e) {
+            // search still works without them, only slower
+            if (tx != null) tx.rollback();
+            log.warn("Could not create trigram indexes for event search", e);
+        }
+    }
+}
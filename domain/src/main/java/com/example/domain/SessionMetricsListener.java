@@ -0,0 +1,67 @@
+package com.example.domain;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.BaseSessionEventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times each Hibernate session from open to close, and the JDBC statements, batches and flushes
+ * it runs. Registered for every session through {@code hibernate.session.events.auto}; a session
+ * is used by one thread at a time, so the start times need no synchronization.
+ */
+public class SessionMetricsListener extends BaseSessionEventListener {
+
+    private static final Timer SESSION_TIMER = timer("db.session", "Hibernate sessions, from open to close");
+    private static final Timer STATEMENT_TIMER = timer("db.statement.execute", "Single JDBC statement executions");
+    private static final Timer BATCH_TIMER = timer("db.batch.execute", "JDBC batch executions");
+    private static final Timer FLUSH_TIMER = timer("db.session.flush", "Session flushes");
+
+    private final long openedAt = System.nanoTime();
+    private long statementStart;
+    private long batchStart;
+    private long flushStart;
+
+    private static Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        STATEMENT_TIMER.record(System.nanoTime() - statementStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        BATCH_TIMER.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        FLUSH_TIMER.record(System.nanoTime() - flushStart, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void end() {
+        SESSION_TIMER.record(System.nanoTime() - openedAt, TimeUnit.NANOSECONDS);
+    }
+}
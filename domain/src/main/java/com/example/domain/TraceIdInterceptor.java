@@ -0,0 +1,71 @@
+package com.example.domain;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import org.slf4j.MDC;
+
+import java.util.function.Supplier;
+
+/**
+ * Puts the caller's trace id into the MDC while a call's callbacks run. Callbacks of one call may
+ * run on different executor threads, so the id is set and cleared around each of them.
+ */
+public class TraceIdInterceptor implements ServerInterceptor {
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String traceId = headers.get(TraceIds.GRPC_KEY);
+        if (traceId == null) {
+            return next.startCall(call, headers);
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(
+                callWithTraceId(traceId, () -> next.startCall(call, headers))) {
+
+            @Override
+            public void onMessage(ReqT message) {
+                withTraceId(traceId, () -> super.onMessage(message));
+            }
+
+            @Override
+            public void onHalfClose() {
+                withTraceId(traceId, super::onHalfClose);
+            }
+
+            @Override
+            public void onCancel() {
+                withTraceId(traceId, super::onCancel);
+            }
+
+            @Override
+            public void onComplete() {
+                withTraceId(traceId, super::onComplete);
+            }
+
+            @Override
+            public void onReady() {
+                withTraceId(traceId, super::onReady);
+            }
+        };
+    }
+
+    private static void withTraceId(String traceId, Runnable action) {
+        callWithTraceId(traceId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static <T> T callWithTraceId(String traceId, Supplier<T> action) {
+        MDC.put(TraceIds.MDC_KEY, traceId);
+        try {
+            return action.get();
+        } finally {
+            MDC.remove(TraceIds.MDC_KEY);
+        }
+    }
+}
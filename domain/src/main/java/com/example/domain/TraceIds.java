@@ -0,0 +1,24 @@
+package com.example.domain;
+
+import io.grpc.Metadata;
+
+import java.util.Map;
+
+/**
+ * Names under which the gateway passes a request's trace id along, so that log lines written
+ * for the same request in both services can be matched up.
+ */
+public final class TraceIds {
+
+    public static final String MDC_KEY = "traceId";
+    public static final String HEADER = "x-trace-id";
+    public static final Metadata.Key<String> GRPC_KEY = Metadata.Key.of(HEADER, Metadata.ASCII_STRING_MARSHALLER);
+
+    private TraceIds() {
+    }
+
+    public static String fromHeaders(Map<String, Object> headers) {
+        Object traceId = headers != null ? headers.get(HEADER) : null;
+        return traceId != null ? traceId.toString() : null;
+    }
+}
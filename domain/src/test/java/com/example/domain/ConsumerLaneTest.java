@@ -0,0 +1,163 @@
+package com.example.domain;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumerLaneTest {
+
+    private final List<List<String>> applied = new CopyOnWriteArrayList<>();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+    private final List<String> retried = new CopyOnWriteArrayList<>();
+    private final List<String> acks = new CopyOnWriteArrayList<>();
+    private final Set<String> ackThreads = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void appliesQueuedMessagesInOneBatchAndAcksOnce() throws Exception {
+        runLane(Set.of(), false, true, "a", "b", "c");
+
+        assertEquals(List.of(List.of("a", "b", "c")), applied);
+        assertEquals(List.of("a", "b", "c"), published);
+        assertEquals(List.of("ack 3 multiple"), acks);
+    }
+
+    @Test
+    void failedBatchFallsBackToSingleMessages() throws Exception {
+        runLane(Set.of("b"), false, false, "a", "b", "c");
+
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("a"), List.of("b"), List.of("c")), applied);
+        assertEquals(List.of("a", "c"), published);
+        assertEquals(List.of("b"), retried);
+        assertEquals(List.of("ack 1", "ack 2", "ack 3"), acks);
+    }
+
+    @Test
+    void requeuesMessageWhoseRetryCannotBePublished() throws Exception {
+        runLane(Set.of("b"), true, true, "a", "b", "c");
+
+        assertEquals(List.of("a", "c"), published);
+        assertEquals(List.of("ack 1", "nack 2 requeue", "ack 3"), acks);
+    }
+
+    @Test
+    void lanesSharingAChannelAckFromOneThread() throws Exception {
+        ChannelAcker acker = new ChannelAcker(recordingChannel());
+        List<Thread> workers = new ArrayList<>();
+        for (int lane = 0; lane < 2; lane++) {
+            ConsumerLane consumerLane = lane(Set.of(), false, false);
+            for (int i = 0; i < 20; i++) {
+                long tag = lane * 20L + i + 1;
+                consumerLane.submit(item(acker, tag, "r" + tag));
+            }
+            Thread worker = new Thread(consumerLane);
+            workers.add(worker);
+            worker.start();
+        }
+        awaitAcks(() -> acks.size() == 40);
+        for (Thread worker : workers) {
+            worker.interrupt();
+            worker.join();
+        }
+        acker.close();
+
+        assertEquals(Set.of("RabbitConsumerAcker"), ackThreads);
+    }
+
+    private void runLane(Set<String> failing, boolean retryFails, boolean multipleAck, String... requestIds)
+            throws Exception {
+        ConsumerLane lane = lane(failing, retryFails, multipleAck);
+        ChannelAcker acker = new ChannelAcker(recordingChannel());
+        for (int i = 0; i < requestIds.length; i++) {
+            lane.submit(item(acker, i + 1, requestIds[i]));
+        }
+
+        Thread worker = new Thread(lane);
+        worker.start();
+        awaitAcks(() -> lane.pending() == 0 && acksComplete(multipleAck, failing, requestIds.length));
+        worker.interrupt();
+        worker.join();
+        acker.close();
+    }
+
+    private ConsumerLane lane(Set<String> failing, boolean retryFails, boolean multipleAck) {
+        EventRepository repository = new EventRepository() {
+            @Override
+            public List<EventResult> applyAll(List<EventMessage> messages) {
+                List<String> ids = new ArrayList<>();
+                messages.forEach(message -> ids.add(message.getRequestId()));
+                applied.add(ids);
+                if (!Collections.disjoint(ids, failing)) {
+                    throw new IllegalStateException("cannot apply " + ids);
+                }
+                List<EventResult> results = new ArrayList<>();
+                messages.forEach(message -> results.add(EventResult.duplicate(message, message.getId())));
+                return results;
+            }
+        };
+        EventChangePublisher changePublisher = new EventChangePublisher() {
+            @Override
+            public synchronized void publish(List<EventResult> results) {
+                results.forEach(result -> published.add(result.getRequestId()));
+            }
+        };
+        RetryPublisher retryPublisher = new RetryPublisher("event-queue") {
+            @Override
+            public synchronized boolean retryOrDeadLetter(Delivery delivery, Exception error) throws IOException {
+                if (retryFails) {
+                    throw new IOException("broker down");
+                }
+                retried.add(new String(delivery.getBody()));
+                return false;
+            }
+        };
+
+        return new ConsumerLane(repository, changePublisher, retryPublisher, 50, 10, 50, multipleAck);
+    }
+
+    private static ConsumerLane.Item item(ChannelAcker acker, long deliveryTag, String requestId) {
+        Delivery delivery = new Delivery(new Envelope(deliveryTag, false, "", "event-queue"),
+                new AMQP.BasicProperties(), requestId.getBytes());
+        return new ConsumerLane.Item(acker, delivery,
+                new EventMessage("PATCH", requestId, deliveryTag - 1, "name", null, null));
+    }
+
+    private static void awaitAcks(BooleanSupplier done) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!done.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "lane did not ack in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private boolean acksComplete(boolean multipleAck, Set<String> failing, int count) {
+        return multipleAck && failing.isEmpty() ? acks.size() == 1 : acks.size() == count;
+    }
+
+    private Channel recordingChannel() {
+        return (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> {
+                    ackThreads.add(Thread.currentThread().getName());
+                    switch (method.getName()) {
+                        case "basicAck" -> acks.add("ack " + args[0] + ((boolean) args[1] ? " multiple" : ""));
+                        case "basicNack" -> acks.add("nack " + args[0] + ((boolean) args[2] ? " requeue" : ""));
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRepositoryTest {
+
+    private final EventRepository repository = new EventRepository();
+
+    @Test
+    void appliesMixedBatchAndRecordsEveryRequest() {
+        long a = create("a");
+        long b = create("b");
+
+        List<EventMessage> batch = List.of(
+                new EventMessage("DELETE", requestId(), b, null, null, null),
+                new EventMessage("PATCH", requestId(), a, "renamed", null, null),
+                new EventMessage("PATCH", requestId(), a, null, null, "Paris"));
+        List<EventResult> results = repository.applyAll(batch);
+
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == EventResult.Status.SUCCEEDED));
+        assertNull(repository.findById(b));
+        Event patched = repository.findById(a);
+        assertEquals("renamed", patched.getName());
+        assertEquals("Paris", patched.getLocation());
+
+        List<EventResult> redelivered = repository.applyAll(batch);
+        assertTrue(redelivered.stream().allMatch(EventResult::isDuplicate));
+    }
+
+    @Test
+    void deleteAfterPatchInSameBatchSeesPatchedRow() {
+        long a = create("a");
+
+        List<EventResult> results = repository.applyAll(List.of(
+                new EventMessage("PATCH", requestId(), a, "renamed", null, null),
+                new EventMessage("DELETE", requestId(), a, null, null, null)));
+
+        assertEquals(EventResult.Status.SUCCEEDED, results.get(1).getStatus());
+        assertEquals(results.get(0).getChange().getVersion(), results.get(1).getChange().getVersion());
+        assertNull(repository.findById(a));
+    }
+
+    @Test
+    void reportsCommittedCollectionVersion() {
+        long before = repository.findCollectionVersion();
+
+        EventChange change = repository.applyAll(List.of(
+                new EventMessage("CREATE", requestId(), null, "c", "2025-01-01", "Rome"))).get(0).getChange();
+
+        assertTrue(change.getCollectionVersion() > before);
+        assertTrue(repository.findCollectionVersion() >= change.getCollectionVersion());
+    }
+
+    @Test
+    void rejectsRetriedUpdateOlderThanAppliedWrite() {
+        long a = create("a");
+        Instant accepted = Instant.now();
+        EventMessage older = new EventMessage("PATCH", requestId(), a, "older", null, null, List.of(), accepted);
+        EventMessage newer = new EventMessage("PATCH", requestId(), a, "newer", null, null, List.of(),
+                accepted.plusMillis(5));
+
+        repository.applyAll(List.of(newer));
+        EventResult retried = repository.applyAll(List.of(older.asRetry())).get(0);
+
+        assertEquals(EventResult.Status.FAILED, retried.getStatus());
+        assertEquals("newer", repository.findById(a).getName());
+    }
+
+    @Test
+    void appliesRetriedUpdateWhenNothingNewerWasApplied() {
+        long a = create("a");
+        Instant accepted = Instant.now();
+        EventMessage earlier = new EventMessage("PATCH", requestId(), a, "earlier", null, null, List.of(),
+                accepted.plusMillis(5));
+        EventMessage retried = new EventMessage("PATCH", requestId(), a, "retried", null, null, List.of(),
+                accepted.plusMillis(10)).asRetry();
+
+        List<EventResult> results = repository.applyAll(List.of(earlier, retried));
+
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == EventResult.Status.SUCCEEDED));
+        assertEquals("retried", repository.findById(a).getName());
+    }
+
+    @Test
+    void rejectsCreateWithMissingField() {
+        EventResult result = repository.applyAll(List.of(
+                new EventMessage("CREATE", requestId(), null, "no location", "2025-01-01", null))).get(0);
+
+        assertEquals(EventResult.Status.FAILED, result.getStatus());
+        assertNull(result.getChange());
+    }
+
+    @Test
+    void updateReplacesEveryFieldAndRejectsAPartialBody() {
+        long a = create("original");
+
+        EventResult partial = repository.applyAll(List.of(
+                new EventMessage("UPDATE", requestId(), a, "only name", null, null))).get(0);
+        assertEquals(EventResult.Status.FAILED, partial.getStatus());
+        assertEquals("original", repository.findById(a).getName());
+
+        repository.applyAll(List.of(new EventMessage("UPDATE", requestId(), a, "replaced", "2026-02-03", "Oslo")));
+        Event replaced = repository.findById(a);
+        assertEquals("replaced", replaced.getName());
+        assertEquals("2026-02-03", replaced.getDate());
+        assertEquals("Oslo", replaced.getLocation());
+    }
+
+    private long create(String name) {
+        EventMessage create = new EventMessage("CREATE", requestId(), null, name, "2025-01-01", "Berlin");
+        return repository.applyAll(List.of(create)).get(0).getChange().getId();
+    }
+
+    private static String requestId() {
+        return UUID.randomUUID().toString();
+    }
+}
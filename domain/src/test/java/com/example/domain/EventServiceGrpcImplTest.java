@@ -0,0 +1,156 @@
+package com.example.domain;
+
+import com.example.grpc.Empty;
+import com.example.grpc.EventServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventServiceGrpcImplTest {
+
+    private static final EventRepository repository = new EventRepository();
+
+    @BeforeAll
+    static void seed() {
+        for (int i = 0; i < 3; i++) {
+            repository.applyAll(List.of(new EventMessage("CREATE", UUID.randomUUID().toString(), null,
+                    "stream " + i, "2025-01-01", "Berlin")));
+        }
+    }
+
+    @AfterEach
+    void clearLimit() {
+        System.clearProperty("grpc.server.max-concurrent-streams");
+    }
+
+    @Test
+    void streamSendsOnlyWhileTheTransportIsReady() {
+        int total = repository.findAll().size();
+        EventServiceGrpcImpl service = new EventServiceGrpcImpl(repository);
+        FakeObserver observer = new FakeObserver();
+
+        service.streamAllEvents(Empty.getDefaultInstance(), observer);
+        assertTrue(observer.sent.isEmpty());
+
+        observer.readyFor = 2;
+        observer.onReady.run();
+        assertEquals(2, observer.sent.size());
+        assertFalse(observer.completed);
+
+        observer.readyFor = Integer.MAX_VALUE;
+        observer.onReady.run();
+        assertEquals(total, observer.sent.size());
+        assertTrue(observer.completed);
+    }
+
+    @Test
+    void rejectsStreamsBeyondTheLimitUntilOneEnds() {
+        System.setProperty("grpc.server.max-concurrent-streams", "1");
+        EventServiceGrpcImpl service = new EventServiceGrpcImpl(repository);
+        FakeObserver open = new FakeObserver();
+        service.streamAllEvents(Empty.getDefaultInstance(), open);
+
+        FakeObserver rejected = new FakeObserver();
+        service.streamAllEvents(Empty.getDefaultInstance(), rejected);
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(rejected.error).getCode());
+
+        open.onCancel.run();
+        FakeObserver accepted = new FakeObserver();
+        service.streamAllEvents(Empty.getDefaultInstance(), accepted);
+        assertNull(accepted.error);
+        accepted.onCancel.run();
+    }
+
+    @Test
+    void streamsEveryEventOverGrpc() throws Exception {
+        Server server = NettyServerBuilder.forPort(0).addService(new EventServiceGrpcImpl(repository)).build().start();
+        ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", server.getPort()).usePlaintext().build();
+        try {
+            Iterator<com.example.grpc.Event> events = EventServiceGrpc.newBlockingStub(channel)
+                    .withDeadlineAfter(10, TimeUnit.SECONDS)
+                    .streamAllEvents(Empty.getDefaultInstance());
+            List<Long> ids = new ArrayList<>();
+            events.forEachRemaining(event -> ids.add(event.getId()));
+
+            assertEquals(repository.findAll().size(), ids.size());
+            assertEquals(ids.stream().sorted().toList(), ids);
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    private static class FakeObserver extends ServerCallStreamObserver<com.example.grpc.Event> {
+        private final List<com.example.grpc.Event> sent = new ArrayList<>();
+        private int readyFor;
+        private boolean completed;
+        private Throwable error;
+        private Runnable onReady;
+        private Runnable onCancel;
+
+        @Override
+        public boolean isReady() {
+            return sent.size() < readyFor;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReady = onReadyHandler;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            this.onCancel = onCancelHandler;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+
+        @Override
+        public void onNext(com.example.grpc.Event value) {
+            sent.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.domain;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.Return;
+import com.rabbitmq.client.ReturnCallback;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPublisherTest {
+
+    private final List<String> calls = new ArrayList<>();
+    private ReturnCallback returnCallback;
+    private boolean nackConfirms;
+    private boolean unroutable;
+
+    @Test
+    void waitsForTheBrokerToConfirmTheRetry() throws Exception {
+        RetryPublisher publisher = openPublisher();
+
+        assertFalse(publisher.retryOrDeadLetter(delivery(), new IllegalStateException("boom")));
+
+        assertEquals(List.of("confirmSelect", "basicPublish event-queue.retry.1000ms", "waitForConfirmsOrDie"),
+                withoutDeclarations());
+    }
+
+    @Test
+    void unconfirmedRetryFailsSoTheDeliveryIsNotAcked() throws Exception {
+        RetryPublisher publisher = openPublisher();
+        nackConfirms = true;
+
+        assertThrows(IOException.class, () -> publisher.retryOrDeadLetter(delivery(), new IllegalStateException("boom")));
+    }
+
+    @Test
+    void unroutableDeadLetterFails() throws Exception {
+        RetryPublisher publisher = openPublisher();
+        unroutable = true;
+
+        assertThrows(IOException.class, () -> publisher.deadLetter(delivery(), new IllegalStateException("boom")));
+    }
+
+    private List<String> withoutDeclarations() {
+        return calls.stream().filter(call -> !call.startsWith("queueDeclare")).toList();
+    }
+
+    private RetryPublisher openPublisher() throws IOException {
+        Channel channel = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "confirmSelect", "queueDeclare" -> {
+                        calls.add(method.getName());
+                        yield null;
+                    }
+                    case "addReturnListener" -> {
+                        returnCallback = (ReturnCallback) args[0];
+                        yield null;
+                    }
+                    case "isOpen" -> true;
+                    case "basicPublish" -> {
+                        calls.add("basicPublish " + args[1]);
+                        if (unroutable) {
+                            returnCallback.handle(new Return(312, "NO_ROUTE", "", (String) args[1],
+                                    (AMQP.BasicProperties) args[3], (byte[]) args[4]));
+                        }
+                        yield null;
+                    }
+                    case "waitForConfirmsOrDie" -> {
+                        calls.add(method.getName());
+                        if (nackConfirms) {
+                            throw new IOException("nacked");
+                        }
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> channel);
+        RetryPublisher publisher = new RetryPublisher("event-queue");
+        publisher.open(connection);
+        return publisher;
+    }
+
+    private static Delivery delivery() {
+        return new Delivery(new Envelope(1, false, "", "event-queue"), new AMQP.BasicProperties(), new byte[0]);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.gateway.config;
+
+import com.example.grpc.Event;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+public class JacksonConfig {
+
+    // lets controllers return protobuf events as-is, without copying them into a Map first
+    @Bean
+    public Module grpcEventModule() {
+        SimpleModule module = new SimpleModule("grpc-event");
+        module.addSerializer(Event.class, new EventSerializer());
+        return module;
+    }
+
+    static class EventSerializer extends StdSerializer<Event> {
+
+        EventSerializer() {
+            super(Event.class);
+        }
+
+        @Override
+        public void serialize(Event event, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("id", event.getId());
+            gen.writeStringField("name", event.getName());
+            gen.writeStringField("date", event.getDate());
+            gen.writeStringField("location", event.getLocation());
+            gen.writeNumberField("version", event.getVersion());
+            gen.writeEndObject();
+        }
+    }
+}
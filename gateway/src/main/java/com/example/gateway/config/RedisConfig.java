@@ -1,19 +1,37 @@
 package com.example.gateway.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.StringUtils;
 
 @Configuration
 public class RedisConfig {
 
+    @Value("${spring.redis.host:redis}")
+    private String redisHost;
+
+    @Value("${spring.redis.port:6379}")
+    private int redisPort;
+
+    // comma separated host:port list; when set the cache talks to a Redis Cluster instead
+    @Value("${event.cache.redis.cluster.nodes:}")
+    private String clusterNodes;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration("redis", 6379);
+        if (!clusterNodes.isBlank()) {
+            RedisClusterConfiguration config = new RedisClusterConfiguration(
+                    StringUtils.commaDelimitedListToSet(clusterNodes.replace(" ", "")));
+            return new LettuceConnectionFactory(config);
+        }
+        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
         return new LettuceConnectionFactory(config);
     }
 
@@ -27,4 +45,16 @@ public class RedisConfig {
         template.setHashKeySerializer(RedisSerializer.string());
         return template;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public RedisTemplate<String, byte[]> eventCacheRedisTemplate(LettuceConnectionFactory factory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setEnableDefaultSerializer(false);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
+        return template;
+    }
+}
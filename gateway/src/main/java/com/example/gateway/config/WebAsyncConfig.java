@@ -0,0 +1,39 @@
+package com.example.gateway.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    /**
+     * Request attribute through which a handler replaces {@code spring.mvc.async.request-timeout} for its
+     * own response. A zero or negative duration disables the timeout.
+     */
+    public static final String TIMEOUT_ATTRIBUTE = WebAsyncConfig.class.getName() + ".timeout";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new TimeoutOverrideInterceptor());
+    }
+
+    // StreamingResponseBody runs as a plain Callable, so this is the last point its timeout can still be set
+    static class TimeoutOverrideInterceptor implements CallableProcessingInterceptor {
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            Object timeout = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (timeout instanceof Duration duration && request instanceof AsyncWebRequest asyncRequest) {
+                asyncRequest.setTimeout(duration.isZero() || duration.isNegative() ? -1L : duration.toMillis());
+            }
+        }
+    }
+}
@@ -1,110 +1,383 @@
 package com.example.gateway.controller;
 
+import com.example.gateway.config.WebAsyncConfig;
+import com.example.gateway.grpc.GrpcFutures;
+import com.example.gateway.rabbit.EventWriteBuffer;
+import com.example.gateway.rabbit.WriteRejectedException;
 import com.example.gateway.service.EventCacheService;
+import com.example.gateway.service.EventCollectionSnapshot;
+import com.example.gateway.service.RequestStatusStore;
+import com.example.gateway.service.SingleFlight;
 import com.example.grpc.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.grpc.Context;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
-import org.springframework.amqp.core.AmqpTemplate;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequestMapping("/events")
 public class EventController {
     private static final Logger log = LoggerFactory.getLogger(EventController.class);
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "date", "location");
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
     private final EventServiceGrpc.EventServiceBlockingStub eventServiceBlockingStub;
-    private final AmqpTemplate amqpTemplate;
+    private final EventServiceGrpc.EventServiceFutureStub eventServiceFutureStub;
+    private final EventWriteBuffer writeBuffer;
     private final ObjectMapper objectMapper;
     private final EventCacheService eventCacheService;
+    private final RequestStatusStore requestStatusStore;
+    private final EventCollectionSnapshot collectionSnapshot;
+    private final SingleFlight<Long, com.example.grpc.Event> eventLookups = new SingleFlight<>();
+
+    @Value("${event.lookup.coalesce.max-wait:2s}")
+    private Duration lookupMaxWait;
+
+    @Value("${event.lookup.batch.max-ids:500}")
+    private int batchMaxIds;
 
-    @Value("${spring.rabbitmq.template.default-receive-queue}")
-    private String queueName;
+    @Value("${event.stream.timeout:10m}")
+    private Duration streamTimeout;
 
     public EventController(EventServiceGrpc.EventServiceBlockingStub eventServiceBlockingStub,
-                           AmqpTemplate amqpTemplate,
+                           EventServiceGrpc.EventServiceFutureStub eventServiceFutureStub,
+                           EventWriteBuffer writeBuffer,
                            ObjectMapper objectMapper,
-                           EventCacheService eventCacheService) {
+                           EventCacheService eventCacheService,
+                           RequestStatusStore requestStatusStore,
+                           EventCollectionSnapshot collectionSnapshot) {
         this.eventServiceBlockingStub = eventServiceBlockingStub;
-        this.amqpTemplate = amqpTemplate;
+        this.eventServiceFutureStub = eventServiceFutureStub;
+        this.writeBuffer = writeBuffer;
         this.objectMapper = objectMapper;
         this.eventCacheService = eventCacheService;
+        this.requestStatusStore = requestStatusStore;
+        this.collectionSnapshot = collectionSnapshot;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getEventById(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<?>> getEventById(@PathVariable Long id,
+                                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Request to GET event by id={}", id);
 
-        Map<String, Object> cached = eventCacheService.getCachedEvent(id);
+        com.example.grpc.Event cached = eventCacheService.getCachedEvent(id);
         if (cached != null) {
             log.debug("Event id={} found in Redis cache", id);
-            return ResponseEntity.ok(cached);
+            return CompletableFuture.completedFuture(eventResponse(cached, ifNoneMatch));
         }
 
-        try {
-            GetEventRequest req = GetEventRequest.newBuilder().setId(id).build();
-            GetEventResponse resp = eventServiceBlockingStub.getEventById(req);
-            com.example.grpc.Event event = resp.getEvent();
+        return eventLookups.execute(id, () -> fetchAndCacheEvent(id))
+                .copy()
+                .orTimeout(lookupMaxWait.toMillis(), TimeUnit.MILLISECONDS)
+                .<ResponseEntity<?>>thenApply(result -> {
+                    if (result == null) {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(Collections.singletonMap("error", "Event not found"));
+                    }
+                    return eventResponse(result, ifNoneMatch);
+                })
+                .exceptionally(ex -> errorResponse("fetching event id=" + id, ex));
+    }
 
-            if (event == null || event.getId() == 0) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Collections.singletonMap("error", "Event not found"));
+    private static ResponseEntity<?> eventResponse(com.example.grpc.Event event, String ifNoneMatch) {
+        String etag = "\"" + event.getVersion() + "\"";
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(event);
+    }
+
+    // If-None-Match uses weak comparison and may list several tags
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            Map<String, Object> result = new HashMap<>();
-            result.put("id", event.getId());
-            result.put("name", event.getName());
-            result.put("date", event.getDate());
-            result.put("location", event.getLocation());
+    private CompletableFuture<com.example.grpc.Event> fetchAndCacheEvent(Long id) {
+        GetEventRequest req = GetEventRequest.newBuilder().setId(id).build();
+        return GrpcFutures.toCompletable(eventServiceFutureStub.getEventById(req))
+                .thenApply(resp -> {
+                    com.example.grpc.Event event = resp.getEvent();
+                    if (event == null || event.getId() == 0) {
+                        return null;
+                    }
 
-            eventCacheService.cacheEvent(event.getId(), result);
-            log.info("Event id={} fetched via gRPC and cached", id);
-            return ResponseEntity.ok(result);
-        } catch (StatusRuntimeException ex) {
-            log.error("Error fetching event id={} via gRPC: {}", id, ex.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.singletonMap("error", "Internal server error"));
-        }
+                    eventCacheService.cacheEvent(event);
+                    log.info("Event id={} fetched via gRPC and cached", id);
+                    return event;
+                });
     }
 
-    @GetMapping
-    public ResponseEntity<?> getAllEvents() {
+    // afterId or limit asks for a page; a page never falls back to the unbounded listing
+    @GetMapping(params = "!ids")
+    public CompletableFuture<ResponseEntity<?>> getAllEvents(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (afterId != null || limit != null) {
+            return getEventsPage(afterId != null ? afterId : 0, limit != null ? limit : DEFAULT_PAGE_LIMIT);
+        }
         log.info("Request to GET all events");
 
+        return collectionSnapshot.get(() -> {
+                    log.debug("Event collection snapshot is stale, fetching all events via gRPC");
+                    return GrpcFutures.toCompletable(eventServiceFutureStub.getAllEvents(Empty.newBuilder().build()));
+                })
+                .copy()
+                .<ResponseEntity<?>>thenApply(snapshot -> {
+                    if (etagMatches(ifNoneMatch, snapshot.etag())) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).build();
+                    }
+                    return ResponseEntity.ok()
+                            .eTag(snapshot.etag())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(snapshot.body());
+                })
+                .exceptionally(ex -> errorResponse("fetching all events", ex));
+    }
+
+    @GetMapping(params = "ids")
+    public CompletableFuture<ResponseEntity<?>> getEventsByIds(@RequestParam List<Long> ids,
+                                                               @RequestParam(required = false) Long afterId,
+                                                               @RequestParam(required = false) Integer limit) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        log.info("Request to GET {} events by ids", uniqueIds.size());
+
+        if (afterId != null || limit != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "ids cannot be combined with afterId or limit")));
+        }
+
+        if (uniqueIds.size() > batchMaxIds) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "At most " + batchMaxIds + " ids per request")));
+        }
+
+        Map<Long, com.example.grpc.Event> found = eventCacheService.getCachedEvents(uniqueIds);
+        List<Long> misses = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            if (!found.containsKey(id)) {
+                misses.add(id);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(inRequestOrder(uniqueIds, found)));
+        }
+
+        GetEventsByIdsRequest req = GetEventsByIdsRequest.newBuilder().addAllIds(misses).build();
+        return GrpcFutures.toCompletable(eventServiceFutureStub.getEventsByIds(req))
+                .<ResponseEntity<?>>thenApply(resp -> {
+                    for (com.example.grpc.Event event : resp.getEventsList()) {
+                        found.put(event.getId(), event);
+                    }
+                    eventCacheService.cacheEvents(resp.getEventsList());
+                    log.debug("Fetched {} of {} missed events via gRPC", resp.getEventsCount(), misses.size());
+                    return ResponseEntity.ok(inRequestOrder(uniqueIds, found));
+                })
+                .exceptionally(ex -> errorResponse("fetching " + misses.size() + " events by ids", ex));
+    }
+
+    private static List<com.example.grpc.Event> inRequestOrder(Collection<Long> ids, Map<Long, com.example.grpc.Event> found) {
+        List<com.example.grpc.Event> list = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            com.example.grpc.Event event = found.get(id);
+            if (event != null) {
+                list.add(event);
+            }
+        }
+        return list;
+    }
+
+    private CompletableFuture<ResponseEntity<?>> getEventsPage(long afterId, int limit) {
+        log.info("Request to GET events page afterId={}, limit={}", afterId, limit);
+
+        GetEventsPageRequest req = GetEventsPageRequest.newBuilder()
+                .setAfterId(afterId)
+                .setLimit(limit)
+                .build();
+        return GrpcFutures.toCompletable(eventServiceFutureStub.getEventsPage(req))
+                .<ResponseEntity<?>>thenApply(resp -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("events", resp.getEventsList());
+                    body.put("hasMore", resp.getHasMore());
+                    if (resp.getHasMore()) {
+                        body.put("nextAfterId", resp.getNextAfterId());
+                    }
+                    return ResponseEntity.ok(body);
+                })
+                .exceptionally(ex -> errorResponse("fetching events page", ex));
+    }
+
+    @GetMapping("/search")
+    public CompletableFuture<ResponseEntity<?>> searchEvents(@RequestParam(required = false) String location,
+                                                             @RequestParam(required = false) String from,
+                                                             @RequestParam(required = false) String to,
+                                                             @RequestParam(required = false) String q,
+                                                             @RequestParam(defaultValue = "0") long afterId,
+                                                             @RequestParam(defaultValue = "100") int limit) {
+        log.info("Request to SEARCH events location={}, from={}, to={}, q={}, afterId={}, limit={}",
+                location, from, to, q, afterId, limit);
+        try {
+            if (from != null) LocalDate.parse(from);
+            if (to != null) LocalDate.parse(to);
+        } catch (DateTimeParseException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "from and to must be dates like 2024-01-31")));
+        }
+
+        SearchEventsRequest.Builder req = SearchEventsRequest.newBuilder()
+                .setAfterId(afterId)
+                .setLimit(limit);
+        if (location != null) req.setLocation(location);
+        if (from != null) req.setFrom(from);
+        if (to != null) req.setTo(to);
+        if (q != null && !q.isBlank()) req.setQuery(q.trim());
+
+        return GrpcFutures.toCompletable(eventServiceFutureStub.searchEvents(req.build()))
+                .<ResponseEntity<?>>thenApply(resp -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("events", resp.getEventsList());
+                    body.put("hasMore", resp.getHasMore());
+                    if (resp.getHasMore()) {
+                        body.put("nextAfterId", resp.getNextAfterId());
+                    }
+                    return ResponseEntity.ok(body);
+                })
+                .exceptionally(ex -> errorResponse("searching events", ex));
+    }
+
+    private static ResponseEntity<?> errorResponse(String action, Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+        if (cause instanceof TimeoutException
+                || Status.fromThrowable(cause).getCode() == Status.Code.DEADLINE_EXCEEDED) {
+            log.warn("Timed out {}", action);
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Collections.singletonMap("error", "Timed out waiting for the domain service"));
+        }
+        if (Status.fromThrowable(cause).getCode() == Status.Code.INVALID_ARGUMENT) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", Status.fromThrowable(cause).getDescription()));
+        }
+        if (Status.fromThrowable(cause).getCode() == Status.Code.RESOURCE_EXHAUSTED) {
+            log.warn("Domain service shed load while {}", action);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Collections.singletonMap("error", "Service overloaded"));
+        }
+        if (Status.fromThrowable(cause).getCode() == Status.Code.UNAVAILABLE) {
+            log.error("Domain service unavailable while {}: {}", action, cause.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Collections.singletonMap("error", "Service unavailable"));
+        }
+        log.error("Error {} via gRPC: {}", action, cause.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Collections.singletonMap("error", "Internal server error"));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllEvents(HttpServletRequest request) {
+        log.info("Request to STREAM all events");
+        // the 200 is sent before the first event, so the stream's own deadline ends it, with an error line,
+        // rather than the servlet async timeout cutting it off silently
+        request.setAttribute(WebAsyncConfig.TIMEOUT_ATTRIBUTE, Duration.ZERO);
+
+        StreamingResponseBody body = out -> {
+            Context.CancellableContext context = Context.current().withCancellation();
+            try {
+                context.run(() -> writeEventStream(out));
+            } finally {
+                context.cancel(null);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void writeEventStream(OutputStream out) {
+        int count = 0;
         try {
-            GetAllEventsResponse resp = eventServiceBlockingStub.getAllEvents(Empty.newBuilder().build());
-            List<Map<String, Object>> list = new ArrayList<>();
-            for (com.example.grpc.Event event : resp.getEventsList()) {
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", event.getId());
-                map.put("name", event.getName());
-                map.put("date", event.getDate());
-                map.put("location", event.getLocation());
-                list.add(map);
+            EventServiceGrpc.EventServiceBlockingStub stub = eventServiceBlockingStub;
+            if (!streamTimeout.isZero() && !streamTimeout.isNegative()) {
+                stub = stub.withDeadlineAfter(streamTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            Iterator<com.example.grpc.Event> events = stub.streamAllEvents(Empty.newBuilder().build());
+            while (events.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(events.next()));
+                out.write('\n');
+                count++;
             }
-            log.info("Total events fetched: {}", list.size());
-            return ResponseEntity.ok(list);
+            out.flush();
+            log.info("Total events streamed: {}", count);
         } catch (StatusRuntimeException ex) {
-            log.error("Error fetching all events via gRPC: {}", ex.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.singletonMap("error", "Internal server error"));
+            log.error("Error streaming events via gRPC after {} events: {}", count, ex.getMessage());
+            writeStreamError(out, ex.getStatus().getCode() == Status.Code.DEADLINE_EXCEEDED
+                    ? "Event stream timed out" : "Event stream interrupted");
+        } catch (IOException ex) {
+            log.warn("Client aborted event stream after {} events: {}", count, ex.getMessage());
+        }
+    }
+
+    // a final {"error": ...} line tells clients the stream was truncated rather than complete
+    private void writeStreamError(OutputStream out, String error) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(Collections.singletonMap("error", error)));
+            out.write('\n');
+            out.flush();
+        } catch (IOException ex) {
+            log.warn("Could not write error line to event stream: {}", ex.getMessage());
         }
     }
 
     @PostMapping
     public ResponseEntity<?> createEvent(@RequestBody Map<String, Object> eventData) {
-        log.info("Request to CREATE event: {}", eventData);
+        log.info("Request to CREATE event");
+        log.debug("CREATE event data={}", eventData);
+        String missing = missingField(eventData);
+        if (missing != null) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "Missing field: " + missing));
+        }
         try {
-            sendAsyncOperation("CREATE", eventData);
-            return ResponseEntity.status(HttpStatus.ACCEPTED)
-                    .body(Collections.singletonMap("message", "Event creation in progress"));
+            String requestId = sendAsyncOperation("CREATE", eventData);
+            return accepted(requestId, "Event creation in progress");
+        } catch (WriteRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             log.error("Error creating event: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -114,15 +387,20 @@ public class EventController {
 
     @PutMapping("/{id}")
     public ResponseEntity<?> updateEvent(@PathVariable Long id, @RequestBody Map<String, Object> eventData) {
-        log.info("Request to UPDATE event id={}, data={}", id, eventData);
+        log.info("Request to UPDATE event id={}", id);
+        log.debug("UPDATE event id={}, data={}", id, eventData);
+        // PUT replaces the whole event, so a partial body would leave fields the client did not mean to keep
+        String missing = missingField(eventData);
+        if (missing != null) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "Missing field: " + missing));
+        }
         eventData.put("id", id);
         try {
-            sendAsyncOperation("UPDATE", eventData);
-
-            eventCacheService.updateCachedEvent(id, eventData);
-
-            return ResponseEntity.status(HttpStatus.ACCEPTED)
-                    .body(Collections.singletonMap("message", "Event update in progress and cache updated"));
+            String requestId = sendAsyncOperation("UPDATE", eventData);
+            return accepted(requestId, "Event update in progress");
+        } catch (WriteRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             log.error("Error updating event id={}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -130,18 +408,56 @@ public class EventController {
         }
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchEvent(@PathVariable Long id, @RequestBody Map<String, Object> eventData) {
+        log.info("Request to PATCH event id={}", id);
+        log.debug("PATCH event id={}, data={}", id, eventData);
+        Map<String, Object> changes = new HashMap<>();
+        for (Map.Entry<String, Object> field : eventData.entrySet()) {
+            if (!PATCHABLE_FIELDS.contains(field.getKey())) {
+                return ResponseEntity.badRequest()
+                        .body(Collections.singletonMap("error", "Unknown field: " + field.getKey()));
+            }
+            if (field.getValue() != null) {
+                changes.put(field.getKey(), field.getValue());
+            }
+        }
+        if (changes.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "Nothing to update"));
+        }
+        changes.put("id", id);
+        try {
+            String requestId = sendAsyncOperation("PATCH", changes);
+            return accepted(requestId, "Event update in progress");
+        } catch (WriteRejectedException e) {
+            return rejected(e);
+        } catch (Exception e) {
+            log.error("Error patching event id={}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Collections.singletonMap("error", "Failed to update event"));
+        }
+    }
+
+    private static String missingField(Map<String, Object> eventData) {
+        for (String field : List.of("name", "date", "location")) {
+            if (eventData.get(field) == null) {
+                return field;
+            }
+        }
+        return null;
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteEvent(@PathVariable Long id) {
         log.info("Request to DELETE event id={}", id);
         Map<String, Object> eventData = new HashMap<>();
         eventData.put("id", id);
         try {
-            sendAsyncOperation("DELETE", eventData);
-
-            eventCacheService.deleteCachedEvent(id);
-
-            return ResponseEntity.status(HttpStatus.ACCEPTED)
-                    .body(Collections.singletonMap("message", "Event deletion in progress and cache cleared"));
+            String requestId = sendAsyncOperation("DELETE", eventData);
+            return accepted(requestId, "Event deletion in progress");
+        } catch (WriteRejectedException e) {
+            return rejected(e);
         } catch (Exception e) {
             log.error("Error deleting event id={}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -150,16 +466,32 @@ public class EventController {
     }
 
 
-    private void sendAsyncOperation(String operation, Map<String, Object> eventData) throws Exception {
-        String requestId = UUID.randomUUID().toString();
+    private ResponseEntity<?> accepted(String requestId, String message) {
+        String statusUrl = "/events/requests/" + requestId;
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", message);
+        body.put("requestId", requestId);
+        body.put("statusUrl", statusUrl);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create(statusUrl))
+                .body(body);
+    }
 
-        Map<String, Object> messageBody = new HashMap<>();
-        messageBody.put("operation", operation);
-        messageBody.put("event", eventData);
-        messageBody.put("requestId", requestId);
+    // a full buffer clears within milliseconds, a failing broker takes longer
+    private ResponseEntity<?> rejected(WriteRejectedException e) {
+        HttpStatus status = e.getReason() == WriteRejectedException.Reason.BUFFER_FULL
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        log.warn("Rejecting write: {}", e.getMessage());
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(Collections.singletonMap("error", e.getMessage()));
+    }
 
-        String jsonMsg = objectMapper.writeValueAsString(messageBody);
-        amqpTemplate.convertAndSend(queueName, jsonMsg);
-        log.debug("Message sent to RabbitMQ queue={}, operation={}, requestId={}", queueName, operation, requestId);
+    private String sendAsyncOperation(String operation, Map<String, Object> eventData) {
+        String requestId = writeBuffer.submit(operation, eventData);
+        log.debug("Buffered operation={} for publishing, requestId={}", operation, requestId);
+        return requestId;
     }
-}
\ No newline at end of file
+}
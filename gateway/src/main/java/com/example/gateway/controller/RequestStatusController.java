@@ -0,0 +1,45 @@
+package com.example.gateway.controller;
+
+import com.example.gateway.service.RequestStatusStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/events/requests")
+public class RequestStatusController {
+    private static final Logger log = LoggerFactory.getLogger(RequestStatusController.class);
+
+    private final RequestStatusStore requestStatusStore;
+
+    // must stay below spring.mvc.async.request-timeout
+    @Value("${event.requests.max-wait:8s}")
+    private Duration maxWait;
+
+    public RequestStatusController(RequestStatusStore requestStatusStore) {
+        this.requestStatusStore = requestStatusStore;
+    }
+
+    @GetMapping("/{requestId}")
+    public CompletableFuture<ResponseEntity<?>> getRequestStatus(@PathVariable String requestId,
+                                                                 @RequestParam(defaultValue = "0") long waitMs) {
+        log.debug("Request to GET status of request {} waiting up to {}ms", requestId, waitMs);
+
+        Duration wait = Duration.ofMillis(Math.max(0, Math.min(waitMs, maxWait.toMillis())));
+        return requestStatusStore.await(requestId, wait)
+                .thenApply(status -> {
+                    if (status == null) {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(Collections.singletonMap("error", "Unknown or expired request id"));
+                    }
+                    return ResponseEntity.ok(status);
+                });
+    }
+}
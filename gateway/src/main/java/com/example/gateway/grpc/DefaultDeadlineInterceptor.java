@@ -0,0 +1,35 @@
+package com.example.gateway.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a deadline to unary calls that do not carry one already. Streaming calls are left
+ * alone, since their duration depends on how much data the client reads.
+ */
+public class DefaultDeadlineInterceptor implements ClientInterceptor {
+
+    private final long deadlineMillis;
+
+    public DefaultDeadlineInterceptor(Duration deadline) {
+        this.deadlineMillis = deadline.toMillis();
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions,
+                                                               Channel next) {
+        if (deadlineMillis > 0
+                && method.getType() == MethodDescriptor.MethodType.UNARY
+                && callOptions.getDeadline() == null) {
+            callOptions = callOptions.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS);
+        }
+        return next.newCall(method, callOptions);
+    }
+}
@@ -1,25 +1,71 @@
 package com.example.gateway.grpc;
 
 import com.example.grpc.EventServiceGrpc;
+import io.grpc.ClientInterceptor;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class GrpcClientConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(GrpcClientConfig.class);
+
     @Value("${domain.grpc.host}")
     private String domainHost;
 
     @Value("${domain.grpc.port}")
     private int domainPort;
 
-    @Bean
-    public ManagedChannel managedChannel() {
+    // e.g. dns:///domain:8081 resolves every A record so calls are spread across domain replicas
+    @Value("${domain.grpc.target:}")
+    private String domainTarget;
+
+    @Value("${domain.grpc.load-balancing-policy:round_robin}")
+    private String loadBalancingPolicy;
+
+    @Value("${domain.grpc.keepalive.time:30s}")
+    private Duration keepAliveTime;
+
+    @Value("${domain.grpc.keepalive.timeout:10s}")
+    private Duration keepAliveTimeout;
+
+    @Value("${domain.grpc.idle-timeout:5m}")
+    private Duration idleTimeout;
+
+    @Value("${domain.grpc.deadline:2s}")
+    private Duration deadline;
+
+    @Value("${tracing.trace-id.enabled:true}")
+    private boolean propagateTraceId;
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ManagedChannel managedChannel(MeterRegistry meterRegistry) {
+        String target = domainTarget.isBlank() ? "dns:///" + domainHost + ":" + domainPort : domainTarget;
+        log.info("Creating gRPC channel to {} with load balancing policy '{}'", target, loadBalancingPolicy);
+        List<ClientInterceptor> interceptors = new ArrayList<>();
+        if (propagateTraceId) {
+            interceptors.add(new TraceIdClientInterceptor());
+        }
+        interceptors.add(new DefaultDeadlineInterceptor(deadline));
+        interceptors.add(new MetricsClientInterceptor(meterRegistry));
         return ManagedChannelBuilder
-                .forAddress(domainHost, domainPort)
+                .forTarget(target)
+                .defaultLoadBalancingPolicy(loadBalancingPolicy)
+                .keepAliveTime(keepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(keepAliveTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .idleTimeout(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .intercept(interceptors)
                 .usePlaintext()
                 .build();
     }
@@ -28,4 +74,9 @@ public class GrpcClientConfig {
     public EventServiceGrpc.EventServiceBlockingStub eventServiceBlockingStub(ManagedChannel channel) {
         return EventServiceGrpc.newBlockingStub(channel);
     }
+
+    @Bean
+    public EventServiceGrpc.EventServiceFutureStub eventServiceFutureStub(ManagedChannel channel) {
+        return EventServiceGrpc.newFutureStub(channel);
+    }
 }
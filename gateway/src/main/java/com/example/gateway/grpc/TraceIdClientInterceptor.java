@@ -0,0 +1,36 @@
+package com.example.gateway.grpc;
+
+import com.example.gateway.tracing.TraceIds;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import org.slf4j.MDC;
+
+/**
+ * Sends the calling thread's trace id to the domain service as {@code x-trace-id} metadata.
+ */
+public class TraceIdClientInterceptor implements ClientInterceptor {
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions,
+                                                               Channel next) {
+        // read here, since the call may be started from another thread
+        String traceId = MDC.get(TraceIds.MDC_KEY);
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+        if (traceId == null) {
+            return call;
+        }
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                headers.put(TraceIds.GRPC_KEY, traceId);
+                super.start(responseListener, headers);
+            }
+        };
+    }
+}
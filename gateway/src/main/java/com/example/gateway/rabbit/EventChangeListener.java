@@ -0,0 +1,63 @@
+package com.example.gateway.rabbit;
+
+import com.example.gateway.service.EventCacheService;
+import com.example.gateway.service.EventCollectionSnapshot;
+import com.example.grpc.Event;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Keeps the event cache in line with committed changes published by the domain service. A single
+ * consumer applies them in publish order.
+ */
+@Component
+public class EventChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EventChangeListener.class);
+
+    private final EventCacheService eventCacheService;
+    private final EventCollectionSnapshot collectionSnapshot;
+    private final ObjectMapper objectMapper;
+
+    public EventChangeListener(EventCacheService eventCacheService,
+                               EventCollectionSnapshot collectionSnapshot,
+                               ObjectMapper objectMapper) {
+        this.eventCacheService = eventCacheService;
+        this.collectionSnapshot = collectionSnapshot;
+        this.objectMapper = objectMapper;
+    }
+
+    @RabbitListener(queues = "#{eventChangesQueue.name}", concurrency = "1")
+    public void onChange(Message message) {
+        JsonNode change;
+        try {
+            change = objectMapper.readTree(message.getBody());
+        } catch (IOException ex) {
+            log.warn("Ignoring malformed event change: {}", ex.getMessage());
+            return;
+        }
+
+        long id = change.path("id").asLong();
+        long version = change.path("version").asLong();
+        switch (change.path("type").asText()) {
+            case "UPSERT" -> eventCacheService.applyUpsert(Event.newBuilder()
+                    .setId(id)
+                    .setName(change.path("name").asText(""))
+                    .setDate(change.path("date").asText(""))
+                    .setLocation(change.path("location").asText(""))
+                    .setVersion(version)
+                    .build());
+            case "DELETE" -> eventCacheService.applyDelete(id, version);
+            default -> log.warn("Ignoring event change of unknown type: {}", change.path("type").asText());
+        }
+        collectionSnapshot.observe(change.path("collectionVersion").asLong());
+        log.debug("Applied {} change for event id={} version={}", change.path("type").asText(), id, version);
+    }
+}
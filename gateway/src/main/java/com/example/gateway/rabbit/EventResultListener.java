@@ -0,0 +1,64 @@
+package com.example.gateway.rabbit;
+
+import com.example.gateway.service.RequestStatus;
+import com.example.gateway.service.RequestStatusStore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+@Component
+public class EventResultListener {
+
+    private static final Logger log = LoggerFactory.getLogger(EventResultListener.class);
+
+    private final RequestStatusStore requestStatusStore;
+    private final ObjectMapper objectMapper;
+
+    public EventResultListener(RequestStatusStore requestStatusStore, ObjectMapper objectMapper) {
+        this.requestStatusStore = requestStatusStore;
+        this.objectMapper = objectMapper;
+    }
+
+    @RabbitListener(queues = "#{eventResultsQueue.name}")
+    public void onResult(Message message) {
+        JsonNode result;
+        try {
+            result = objectMapper.readTree(message.getBody());
+        } catch (IOException ex) {
+            log.warn("Ignoring malformed request result: {}", ex.getMessage());
+            return;
+        }
+
+        RequestStatus.State state;
+        try {
+            state = RequestStatus.State.valueOf(result.path("status").asText());
+        } catch (IllegalArgumentException ex) {
+            log.warn("Ignoring request result with unknown status: {}", result.path("status").asText());
+            return;
+        }
+
+        String requestId = result.path("requestId").asText();
+        complete(requestId, state, result);
+        // updates the gateway folded into this one share its outcome
+        for (JsonNode coalescedId : result.path("coalescedRequestIds")) {
+            complete(coalescedId.asText(), state, result);
+        }
+        log.debug("Request {} finished with status {}", requestId, state);
+    }
+
+    private void complete(String requestId, RequestStatus.State state, JsonNode result) {
+        requestStatusStore.complete(new RequestStatus(
+                requestId,
+                result.path("operation").asText(null),
+                state,
+                result.hasNonNull("eventId") ? result.get("eventId").asLong() : null,
+                result.hasNonNull("version") ? result.get("version").asLong() : null,
+                result.path("error").asText(null)));
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.gateway.rabbit;
+
+import com.example.gateway.service.RequestStatus;
+import com.example.gateway.service.RequestStatusStore;
+import com.example.gateway.tracing.TraceIds;
+import com.example.grpc.EventFields;
+import com.example.grpc.EventOperation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.Timestamp;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffers queued writes for a few milliseconds and publishes them to the domain queue in batches,
+ * waiting for one round of publisher confirms per batch. Successive patches of the same event in a
+ * batch are folded into one message that carries the ids of every request it stands for.
+ * <p>
+ * A full buffer, or a broker that just failed to confirm a batch, rejects new writes instead of
+ * blocking the request thread.
+ * <p>
+ * Messages are {@link EventOperation} protobufs by default; {@code event.writes.format=json} keeps
+ * publishing the older JSON layout while domain instances that only read JSON are still running.
+ */
+@Component
+public class EventWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(EventWriteBuffer.class);
+
+    public enum Format { PROTOBUF, JSON }
+
+    public static final String PROTOBUF_CONTENT_TYPE = "application/x-protobuf";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final RequestStatusStore requestStatusStore;
+    private final String queueName;
+    private final Format format;
+    private final BlockingQueue<PendingWrite> buffer;
+    private final int batchMaxSize;
+    private final Duration flushInterval;
+    private final Duration confirmTimeout;
+    private final Duration brokerBackoff;
+    private final Thread flusher;
+
+    private final Counter coalescedCounter;
+    private final Counter rejectedCounter;
+    private final Counter publishFailures;
+    private final DistributionSummary batchSizeSummary;
+    private final Timer publishTimer;
+    private final Timer bufferWaitTimer;
+
+    private volatile long brokerDownUntil;
+    private volatile boolean running = true;
+
+    public EventWriteBuffer(RabbitTemplate rabbitTemplate,
+                            ObjectMapper objectMapper,
+                            RequestStatusStore requestStatusStore,
+                            MeterRegistry meterRegistry,
+                            @Value("${spring.rabbitmq.template.default-receive-queue}") String queueName,
+                            @Value("${event.writes.format:protobuf}") Format format,
+                            @Value("${event.writes.buffer.capacity:10000}") int capacity,
+                            @Value("${event.writes.batch.max-size:200}") int batchMaxSize,
+                            @Value("${event.writes.flush-interval:5ms}") Duration flushInterval,
+                            @Value("${event.writes.confirm-timeout:5s}") Duration confirmTimeout,
+                            @Value("${event.writes.broker-backoff:1s}") Duration brokerBackoff) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.requestStatusStore = requestStatusStore;
+        this.queueName = queueName;
+        this.format = format;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchMaxSize = batchMaxSize;
+        this.flushInterval = flushInterval;
+        this.confirmTimeout = confirmTimeout;
+        this.brokerBackoff = brokerBackoff;
+
+        this.coalescedCounter = Counter.builder("event.writes.coalesced")
+                .description("Patches folded into an earlier patch of the same event")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("event.writes.rejected")
+                .description("Writes refused because the buffer was full or the broker was failing")
+                .register(meterRegistry);
+        this.publishFailures = Counter.builder("event.writes.publish.failures")
+                .description("Batches the broker did not confirm")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("event.writes.batch.size")
+                .description("Messages published per confirmed batch")
+                .register(meterRegistry);
+        this.publishTimer = Timer.builder("event.writes.publish")
+                .description("Time to publish one batch and receive the broker's confirms")
+                .register(meterRegistry);
+        this.bufferWaitTimer = Timer.builder("event.writes.buffer.wait")
+                .description("Time from accepting a write to publishing it")
+                .register(meterRegistry);
+        Gauge.builder("event.writes.buffered", buffer, BlockingQueue::size)
+                .description("Writes accepted but not yet published")
+                .register(meterRegistry);
+
+        this.flusher = new Thread(this::run, "event-write-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Accepts a write for publishing and returns its request id.
+     *
+     * @throws WriteRejectedException if the write cannot be accepted right now
+     */
+    public String submit(String operation, Map<String, Object> eventData) {
+        if (System.currentTimeMillis() < brokerDownUntil) {
+            rejectedCounter.increment();
+            throw new WriteRejectedException(WriteRejectedException.Reason.BROKER_UNAVAILABLE, brokerBackoff);
+        }
+
+        String requestId = UUID.randomUUID().toString();
+        Object id = eventData.get("id");
+        Long eventId = id instanceof Number n ? n.longValue() : null;
+        // registered first so that a result arriving right after publishing is not overwritten
+        requestStatusStore.markPending(requestId, operation, eventId);
+        if (!buffer.offer(new PendingWrite(requestId, operation, eventId, eventData))) {
+            rejectedCounter.increment();
+            requestStatusStore.complete(new RequestStatus(requestId, operation, RequestStatus.State.FAILED,
+                    eventId, null, "Write buffer full"));
+            throw new WriteRejectedException(WriteRejectedException.Reason.BUFFER_FULL, flushInterval);
+        }
+        return requestId;
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(batchMaxSize);
+        while (running) {
+            try {
+                PendingWrite first = buffer.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // give concurrent writers a moment to join the batch
+                if (buffer.size() < batchMaxSize - 1) {
+                    Thread.sleep(flushInterval.toMillis());
+                }
+                buffer.drainTo(batch, batchMaxSize - 1);
+                publish(coalesce(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error while publishing buffered writes", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // folds a patch into the previous patch of the same event unless another write to it came in between
+    static List<PendingWrite> coalesce(List<PendingWrite> batch) {
+        List<PendingWrite> merged = new ArrayList<>(batch.size());
+        Map<Long, PendingWrite> openPatches = new HashMap<>();
+        for (PendingWrite write : batch) {
+            if (write.eventId == null) {
+                merged.add(write);
+                continue;
+            }
+            PendingWrite previous = openPatches.get(write.eventId);
+            if (write.isPatch() && previous != null) {
+                previous.absorb(write);
+                continue;
+            }
+            merged.add(write);
+            if (write.isPatch()) {
+                openPatches.put(write.eventId, write);
+            } else {
+                openPatches.remove(write.eventId);
+            }
+        }
+        return merged;
+    }
+
+    private void publish(List<PendingWrite> writes) {
+        List<Message> messages = new ArrayList<>(writes.size());
+        Instant publishedAt = Instant.now();
+        int coalesced = 0;
+        for (PendingWrite write : writes) {
+            coalesced += write.coalescedRequestIds.size();
+            bufferWaitTimer.record(Duration.between(write.acceptedAt, publishedAt));
+            try {
+                messages.add(toMessage(write, publishedAt));
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.error("Cannot serialize write requestId={}", write.requestId, e);
+                fail(List.of(write), "Cannot serialize write");
+            }
+        }
+        coalescedCounter.increment(coalesced);
+
+        try {
+            publishTimer.record(() -> rabbitTemplate.invoke(operations -> {
+                for (Message message : messages) {
+                    operations.send("", queueName, message);
+                }
+                operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            }));
+            batchSizeSummary.record(messages.size());
+            log.debug("Published {} writes to queue={} ({} coalesced)", messages.size(), queueName, coalesced);
+        } catch (RuntimeException e) {
+            publishFailures.increment();
+            brokerDownUntil = System.currentTimeMillis() + brokerBackoff.toMillis();
+            log.error("Broker did not confirm a batch of {} writes", messages.size(), e);
+            fail(writes, "Failed to publish to the message broker");
+        }
+    }
+
+    private Message toMessage(PendingWrite write, Instant publishedAt) throws JsonProcessingException {
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId(write.requestId);
+        properties.setTimestamp(Date.from(publishedAt));
+        if (write.traceId != null) {
+            properties.setHeader(TraceIds.AMQP_HEADER, write.traceId);
+        }
+        if (format == Format.JSON) {
+            properties.setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN);
+            properties.setContentEncoding(StandardCharsets.UTF_8.name());
+            return new Message(objectMapper.writeValueAsBytes(write.toMap()), properties);
+        }
+        properties.setContentType(PROTOBUF_CONTENT_TYPE);
+        return new Message(write.toProto(publishedAt).toByteArray(), properties);
+    }
+
+    private void fail(List<PendingWrite> writes, String error) {
+        for (PendingWrite write : writes) {
+            requestStatusStore.complete(new RequestStatus(write.requestId, write.operation,
+                    RequestStatus.State.FAILED, write.eventId, null, error));
+            for (String coalescedId : write.coalescedRequestIds) {
+                requestStatusStore.complete(new RequestStatus(coalescedId, write.operation,
+                        RequestStatus.State.FAILED, write.eventId, null, error));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        flusher.join(confirmTimeout.toMillis() + 1000);
+        List<PendingWrite> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("Publishing {} buffered writes before shutdown", remaining.size());
+            publish(coalesce(remaining));
+        }
+    }
+
+    static final class PendingWrite {
+        private final String requestId;
+        private final String operation;
+        private final Long eventId;
+        private final Map<String, Object> eventData;
+        private final Instant acceptedAt = Instant.now();
+        // submitted on the request thread, so this is the id of the request that made the write
+        private final String traceId = MDC.get(TraceIds.MDC_KEY);
+        private final List<String> coalescedRequestIds = new ArrayList<>();
+
+        PendingWrite(String requestId, String operation, Long eventId, Map<String, Object> eventData) {
+            this.requestId = requestId;
+            this.operation = operation;
+            this.eventId = eventId;
+            this.eventData = new LinkedHashMap<>(eventData);
+        }
+
+        // an UPDATE replaces the whole event, so only patches are sparse enough to merge
+        boolean isPatch() {
+            return "PATCH".equals(operation);
+        }
+
+        // later values win, but a missing field must not erase one set by an earlier patch
+        void absorb(PendingWrite later) {
+            later.eventData.forEach((field, value) -> {
+                if (value != null) {
+                    eventData.put(field, value);
+                }
+            });
+            coalescedRequestIds.add(later.requestId);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> message = new HashMap<>();
+            message.put("operation", operation);
+            message.put("event", eventData);
+            message.put("requestId", requestId);
+            message.put("acceptedAt", acceptedAt.toString());
+            if (!coalescedRequestIds.isEmpty()) {
+                message.put("coalescedRequestIds", coalescedRequestIds);
+            }
+            return message;
+        }
+
+        EventOperation toProto(Instant publishedAt) {
+            EventFields.Builder fields = EventFields.newBuilder();
+            if (eventId != null) fields.setId(eventId);
+            String name = text("name");
+            if (name != null) fields.setName(name);
+            String date = text("date");
+            if (date != null) fields.setDate(date);
+            String location = text("location");
+            if (location != null) fields.setLocation(location);
+
+            return EventOperation.newBuilder()
+                    .setOperation(EventOperation.Operation.valueOf(operation))
+                    .setRequestId(requestId)
+                    .setEvent(fields)
+                    .addAllCoalescedRequestIds(coalescedRequestIds)
+                    .setAcceptedAt(timestamp(acceptedAt))
+                    .setPublishedAt(timestamp(publishedAt))
+                    .build();
+        }
+
+        private String text(String field) {
+            Object value = eventData.get(field);
+            return value != null ? value.toString() : null;
+        }
+
+        private static Timestamp timestamp(Instant instant) {
+            return Timestamp.newBuilder()
+                    .setSeconds(instant.getEpochSecond())
+                    .setNanos(instant.getNano())
+                    .build();
+        }
+    }
+}
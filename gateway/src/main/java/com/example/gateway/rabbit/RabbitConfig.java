@@ -1,5 +1,9 @@
 package com.example.gateway.rabbit;
 
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,8 +11,42 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class RabbitConfig {
 
+    public static final String EVENT_CHANGES_EXCHANGE = "event-changes";
+    public static final String EVENT_RESULTS_EXCHANGE = "event-results";
+
     @Bean
     public Queue eventQueue() {
         return new Queue("event-queue", true);
     }
+
+    @Bean
+    public FanoutExchange eventChangesExchange() {
+        return new FanoutExchange(EVENT_CHANGES_EXCHANGE, true, false);
+    }
+
+    // one auto-delete queue per gateway instance, so every instance sees every change
+    @Bean
+    public Queue eventChangesQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding eventChangesBinding(Queue eventChangesQueue, FanoutExchange eventChangesExchange) {
+        return BindingBuilder.bind(eventChangesQueue).to(eventChangesExchange);
+    }
+
+    @Bean
+    public FanoutExchange eventResultsExchange() {
+        return new FanoutExchange(EVENT_RESULTS_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue eventResultsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding eventResultsBinding(Queue eventResultsQueue, FanoutExchange eventResultsExchange) {
+        return BindingBuilder.bind(eventResultsQueue).to(eventResultsExchange);
+    }
 }
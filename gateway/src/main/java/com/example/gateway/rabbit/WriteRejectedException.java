@@ -0,0 +1,28 @@
+package com.example.gateway.rabbit;
+
+import java.time.Duration;
+
+/**
+ * Thrown when {@link EventWriteBuffer} cannot take another write; the client should retry after {@link #getRetryAfter()}.
+ */
+public class WriteRejectedException extends RuntimeException {
+
+    public enum Reason { BUFFER_FULL, BROKER_UNAVAILABLE }
+
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public WriteRejectedException(Reason reason, Duration retryAfter) {
+        super(reason == Reason.BUFFER_FULL ? "Write buffer is full" : "Message broker is unavailable");
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.gateway.service;
+
+import com.example.grpc.Event;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes cached events as a one-byte format header, the row version as 8 big-endian bytes, and
+ * the payload. Keeping the version at a fixed offset lets {@link EventCacheService} compare
+ * versions inside Redis without decoding the payload.
+ * <p>
+ * Older entries are still readable: unversioned protobuf entries, and JSON entries written by
+ * {@code GenericJackson2JsonRedisSerializer}, which have no header and start with '{'.
+ */
+@Component
+public class EventCacheCodec {
+
+    public enum Format { PROTOBUF, JSON }
+
+    static final byte VERSIONED_PROTOBUF = 0x11;
+    static final byte VERSIONED_PROTOBUF_DEFLATE = 0x12;
+    static final byte VERSIONED_JSON = 0x13;
+    static final byte TOMBSTONE = 0x1F;
+    static final int VERSION_OFFSET = 1;
+    static final int PAYLOAD_OFFSET = VERSION_OFFSET + Long.BYTES;
+
+    private static final byte LEGACY_PROTOBUF = 0x01;
+    private static final byte LEGACY_PROTOBUF_DEFLATE = 0x02;
+    private static final byte LEGACY_JSON = '{';
+
+    private final ObjectMapper objectMapper;
+    private final Format format;
+    private final int compressThreshold;
+    private final DistributionSummary encodedSize;
+
+    public EventCacheCodec(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${event.cache.codec.format:protobuf}") Format format,
+                           @Value("${event.cache.codec.compress-threshold:512}") int compressThreshold) {
+        this.objectMapper = objectMapper;
+        this.format = format;
+        this.compressThreshold = compressThreshold;
+        this.encodedSize = DistributionSummary.builder("event.cache.entry.size")
+                .baseUnit("bytes")
+                .tag("format", format.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    public byte[] encode(Event event) {
+        byte[] encoded = format == Format.JSON ? encodeJson(event) : encodeProtobuf(event);
+        encodedSize.record(encoded.length);
+        return encoded;
+    }
+
+    /**
+     * Marks an event as deleted at {@code version}, so that slower writers holding an older copy
+     * cannot bring it back.
+     */
+    public byte[] encodeTombstone(long version) {
+        return withHeader(TOMBSTONE, version, new byte[0]);
+    }
+
+    /**
+     * Returns the cached event, or {@code null} for empty values and tombstones.
+     */
+    public Event decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return null;
+
+        try {
+            return switch (bytes[0]) {
+                case VERSIONED_PROTOBUF -> Event.parseFrom(
+                        CodedInputStream.newInstance(bytes, PAYLOAD_OFFSET, bytes.length - PAYLOAD_OFFSET));
+                case VERSIONED_PROTOBUF_DEFLATE -> Event.parseFrom(inflate(bytes, PAYLOAD_OFFSET));
+                case VERSIONED_JSON -> decodeJson(objectMapper.readTree(
+                        bytes, PAYLOAD_OFFSET, bytes.length - PAYLOAD_OFFSET));
+                case TOMBSTONE -> null;
+                case LEGACY_PROTOBUF -> Event.parseFrom(CodedInputStream.newInstance(bytes, 1, bytes.length - 1));
+                case LEGACY_PROTOBUF_DEFLATE -> Event.parseFrom(inflate(bytes, 1));
+                case LEGACY_JSON -> decodeJson(objectMapper.readTree(bytes));
+                default -> throw new SerializationException("Unknown event cache entry header " + bytes[0]);
+            };
+        } catch (IOException | DataFormatException ex) {
+            throw new SerializationException("Cannot decode cached event", ex);
+        }
+    }
+
+    /**
+     * Whether an entry was written in a format other than the configured one and should be rewritten.
+     */
+    public boolean isStale(byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || bytes[0] == TOMBSTONE) return false;
+        return format == Format.JSON
+                ? bytes[0] != VERSIONED_JSON
+                : bytes[0] != VERSIONED_PROTOBUF && bytes[0] != VERSIONED_PROTOBUF_DEFLATE;
+    }
+
+    private byte[] encodeProtobuf(Event event) {
+        byte[] payload = event.toByteArray();
+        if (compressThreshold > 0 && payload.length >= compressThreshold) {
+            byte[] deflated = deflate(payload);
+            if (deflated.length < payload.length) {
+                return withHeader(VERSIONED_PROTOBUF_DEFLATE, event.getVersion(), deflated);
+            }
+        }
+        return withHeader(VERSIONED_PROTOBUF, event.getVersion(), payload);
+    }
+
+    private byte[] encodeJson(Event event) {
+        try {
+            return withHeader(VERSIONED_JSON, event.getVersion(), objectMapper.writeValueAsBytes(event));
+        } catch (IOException ex) {
+            throw new SerializationException("Cannot encode event id=" + event.getId(), ex);
+        }
+    }
+
+    private static byte[] withHeader(byte header, long version, byte[] payload) {
+        return ByteBuffer.allocate(PAYLOAD_OFFSET + payload.length)
+                .put(header)
+                .putLong(version)
+                .put(payload)
+                .array();
+    }
+
+    private static Event decodeJson(JsonNode node) {
+        JsonNode id = node.path("id");
+        // default typing wrote longs as ["java.lang.Long", 42]
+        if (id.isArray()) {
+            id = id.path(1);
+        }
+        return Event.newBuilder()
+                .setId(id.asLong())
+                .setName(node.path("name").asText(""))
+                .setDate(node.path("date").asText(""))
+                .setLocation(node.path("location").asText(""))
+                .setVersion(node.path("version").asLong())
+                .build();
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 2);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated compressed event cache entry");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
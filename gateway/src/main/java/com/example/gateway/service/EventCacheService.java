@@ -1,82 +1,390 @@
 package com.example.gateway.service;
 
+import com.example.grpc.Event;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Two-level event cache. Reads fill it with SET NX, so they never overwrite an entry, and
+ * committed changes from the domain service replace entries only when they carry a newer version.
+ * A slow read therefore cannot put back data that a change has already superseded.
+ */
 @Service
 public class EventCacheService {
 
     private static final Logger log = LoggerFactory.getLogger(EventCacheService.class);
-    private static final String REDIS_PREFIX = "EVENT_CACHE";
+    // single hash used before entries moved to one key per event
+    private static final String LEGACY_HASH_KEY = "EVENT_CACHE";
+    private static final int LEGACY_MIGRATION_BATCH = 500;
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final HashOperations<String, String, Map<String, Object>> hashOperations;
+    // ARGV: value, version, ttl in ms. Entries without a version header are always replaced.
+    private static final RedisScript<Long> SET_IF_NEWER = RedisScript.of("""
+            local current = redis.call('GET', KEYS[1])
+            if current and string.len(current) >= 9 then
+              local header = string.byte(current, 1)
+              if header >= 0x11 and header <= 0x1F then
+                local version = 0
+                for i = 2, 9 do
+                  version = version * 256 + string.byte(current, i)
+                end
+                if version >= tonumber(ARGV[2]) then
+                  return 0
+                end
+              end
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
 
-    public EventCacheService(RedisTemplate<String, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
-        this.hashOperations = redisTemplate.opsForHash();
+    private final RedisTemplate<String, byte[]> eventCacheRedisTemplate;
+    private final ValueOperations<String, byte[]> valueOperations;
+    private final EventCacheCodec codec;
+    private final Cache<Long, Event> nearCache;
+    // version each recently deleted event was deleted at, so a read that finishes late cannot re-add it
+    private final Cache<Long, Long> nearTombstones;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final String keyPrefix;
+    private final long ttlMillis;
+    private final double ttlJitter;
+    private final Duration tombstoneTtl;
+    private final boolean pipelineWrites;
+    private final Timer redisGetTimer;
+    private final Timer redisMultiGetTimer;
+    private final Timer redisWriteTimer;
+    private final Timer redisSetIfNewerTimer;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private volatile boolean legacyHashMigrated;
+
+    public EventCacheService(RedisTemplate<String, byte[]> eventCacheRedisTemplate,
+                             EventCacheCodec codec,
+                             RedisCircuitBreaker circuitBreaker,
+                             MeterRegistry meterRegistry,
+                             @Value("${event.cache.near.max-size:10000}") long nearCacheMaxSize,
+                             @Value("${event.cache.near.ttl:30s}") Duration nearCacheTtl,
+                             @Value("${event.cache.key-prefix:event:}") String keyPrefix,
+                             @Value("${event.cache.ttl:10m}") Duration ttl,
+                             @Value("${event.cache.ttl-jitter:0.1}") double ttlJitter,
+                             @Value("${event.cache.tombstone-ttl:1m}") Duration tombstoneTtl,
+                             @Value("${event.cache.redis.cluster.nodes:}") String clusterNodes) {
+        this.eventCacheRedisTemplate = eventCacheRedisTemplate;
+        this.valueOperations = eventCacheRedisTemplate.opsForValue();
+        this.codec = codec;
+        this.circuitBreaker = circuitBreaker;
+        this.keyPrefix = keyPrefix;
+        this.ttlMillis = ttl.toMillis();
+        this.ttlJitter = Math.max(0, Math.min(ttlJitter, 1));
+        this.tombstoneTtl = tombstoneTtl;
+        // a cluster splits keys across nodes, so batched writes are sent key by key there
+        this.pipelineWrites = clusterNodes.isBlank();
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxSize)
+                .expireAfterWrite(nearCacheTtl)
+                .recordStats()
+                .build();
+        this.nearTombstones = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxSize)
+                .expireAfterWrite(tombstoneTtl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "eventNearCache");
+        this.redisGetTimer = redisTimer(meterRegistry, "get");
+        this.redisMultiGetTimer = redisTimer(meterRegistry, "multi-get");
+        this.redisWriteTimer = redisTimer(meterRegistry, "write");
+        this.redisSetIfNewerTimer = redisTimer(meterRegistry, "set-if-newer");
+        this.redisHits = redisLookups(meterRegistry, "hit");
+        this.redisMisses = redisLookups(meterRegistry, "miss");
     }
 
-    private boolean isRedisAvailable() {
-        try {
-            redisTemplate.hasKey("healthcheck");
-            return true;
-        } catch (RedisConnectionFailureException ex) {
-            log.warn("Redis is unavailable: {}", ex.getMessage());
-            return false;
-        }
+    private static Timer redisTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("event.cache.redis.latency")
+                .description("Redis round trips made by the event cache")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    // near cache hits and misses are already reported by the Caffeine cache metrics
+    private static Counter redisLookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("event.cache.redis.lookups")
+                .description("Events looked up in Redis after missing the near cache")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
-    public void cacheEvent(Long id, Map<String, Object> event) {
-        if (!isRedisAvailable()) return;
+    public void cacheEvent(Event event) {
+        putNear(event);
+        if (!circuitBreaker.allowRequest()) return;
 
         try {
-            hashOperations.put(REDIS_PREFIX, String.valueOf(id), event);
-            log.debug("Event id={} cached in Redis", id);
+            redisWriteTimer.record(() -> valueOperations.setIfAbsent(key(event.getId()), codec.encode(event), nextTtl()));
+            circuitBreaker.recordSuccess();
+            log.debug("Event id={} cached in Redis", event.getId());
         } catch (RedisConnectionFailureException | QueryTimeoutException ex) {
-            log.warn("Failed to cache event id={} due to Redis being unavailable: {}", id, ex.getMessage());
+            circuitBreaker.recordFailure();
+            log.warn("Failed to cache event id={} due to Redis being unavailable: {}", event.getId(), ex.getMessage());
         }
     }
 
-    public Map<String, Object> getCachedEvent(Long id) {
-        if (!isRedisAvailable()) return null;
+    public Event getCachedEvent(Long id) {
+        Event near = nearCache.getIfPresent(id);
+        if (near != null) {
+            log.debug("Event id={} served from near cache", id);
+            return near;
+        }
+
+        if (!circuitBreaker.allowRequest()) return null;
 
         try {
-            return hashOperations.get(REDIS_PREFIX, String.valueOf(id));
+            byte[] cached = redisGetTimer.record(() -> valueOperations.get(key(id)));
+            circuitBreaker.recordSuccess();
+            Event event = decode(id, cached);
+            (event != null ? redisHits : redisMisses).increment();
+            if (event != null) {
+                putNear(event);
+                if (codec.isStale(cached)) {
+                    setIfNewer(event);
+                }
+            }
+            return event;
         } catch (RedisConnectionFailureException | QueryTimeoutException ex) {
+            circuitBreaker.recordFailure();
             log.warn("Failed to retrieve event id={} from Redis due to Redis being unavailable: {}", id, ex.getMessage());
             return null;
         }
     }
 
-    public void updateCachedEvent(Long id, Map<String, Object> updatedEvent) {
-        if (!isRedisAvailable()) return;
+    public Map<Long, Event> getCachedEvents(Collection<Long> ids) {
+        Map<Long, Event> found = new HashMap<>();
+        List<Long> remaining = new ArrayList<>();
+        for (Long id : ids) {
+            Event near = nearCache.getIfPresent(id);
+            if (near != null) {
+                found.put(id, near);
+            } else {
+                remaining.add(id);
+            }
+        }
+
+        if (remaining.isEmpty() || !circuitBreaker.allowRequest()) return found;
 
         try {
-            if (hashOperations.hasKey(REDIS_PREFIX, String.valueOf(id))) {
-                hashOperations.put(REDIS_PREFIX, String.valueOf(id), updatedEvent);
-                log.debug("Updated cached event id={} in Redis", id);
+            List<String> keys = new ArrayList<>(remaining.size());
+            for (Long id : remaining) {
+                keys.add(key(id));
             }
+            List<byte[]> values = redisMultiGetTimer.record(() -> valueOperations.multiGet(keys));
+            circuitBreaker.recordSuccess();
+
+            for (int i = 0; i < remaining.size(); i++) {
+                Long id = remaining.get(i);
+                Event event = decode(id, values.get(i));
+                if (event != null) {
+                    putNear(event);
+                    found.put(id, event);
+                    if (codec.isStale(values.get(i))) {
+                        setIfNewer(event);
+                    }
+                }
+            }
+            int redisFound = found.size() - (ids.size() - remaining.size());
+            redisHits.increment(redisFound);
+            redisMisses.increment(remaining.size() - redisFound);
+            log.debug("Batch cache lookup: {} of {} events found", found.size(), ids.size());
+        } catch (RedisConnectionFailureException | QueryTimeoutException ex) {
+            circuitBreaker.recordFailure();
+            log.warn("Failed to retrieve {} events from Redis due to Redis being unavailable: {}", remaining.size(), ex.getMessage());
+        }
+        return found;
+    }
+
+    public void cacheEvents(Collection<Event> events) {
+        if (events.isEmpty()) return;
+
+        for (Event event : events) {
+            putNear(event);
+        }
+        if (!circuitBreaker.allowRequest()) return;
+
+        try {
+            addAll(events);
+            circuitBreaker.recordSuccess();
+            log.debug("{} events cached in Redis", events.size());
         } catch (RedisConnectionFailureException | QueryTimeoutException ex) {
-            log.warn("Failed to update event id={} in Redis cache due to Redis being unavailable: {}", id, ex.getMessage());
+            circuitBreaker.recordFailure();
+            log.warn("Failed to cache {} events due to Redis being unavailable: {}", events.size(), ex.getMessage());
         }
     }
 
-    public void deleteCachedEvent(Long id) {
-        if (!isRedisAvailable()) return;
+    /**
+     * Writes through a committed create or update, unless the cache already holds this or a later version.
+     */
+    public void applyUpsert(Event event) {
+        putNear(event);
+        if (!circuitBreaker.allowRequest()) return;
 
         try {
-            hashOperations.delete(REDIS_PREFIX, String.valueOf(id));
-            log.debug("Deleted cached event id={} from Redis", id);
+            boolean written = setIfNewer(event);
+            circuitBreaker.recordSuccess();
+            log.debug("Change for event id={} version={} {}", event.getId(), event.getVersion(),
+                    written ? "written to Redis" : "skipped, Redis already has it");
         } catch (RedisConnectionFailureException | QueryTimeoutException ex) {
+            circuitBreaker.recordFailure();
+            log.warn("Failed to write change for event id={} due to Redis being unavailable: {}", event.getId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Replaces a deleted event with a short-lived tombstone, which keeps in-flight reads from re-adding it.
+     */
+    public void applyDelete(long id, long version) {
+        nearCache.asMap().compute(id, (key, current) -> {
+            nearTombstones.put(key, version + 1);
+            return null;
+        });
+        if (!circuitBreaker.allowRequest()) return;
+
+        try {
+            // a tombstone outranks the deleted row's own version
+            executeSetIfNewer(key(id), codec.encodeTombstone(version + 1), version + 1, tombstoneTtl);
+            circuitBreaker.recordSuccess();
+            log.debug("Event id={} replaced by tombstone in Redis", id);
+        } catch (RedisConnectionFailureException | QueryTimeoutException ex) {
+            circuitBreaker.recordFailure();
             log.warn("Failed to delete event id={} from Redis cache due to Redis being unavailable: {}", id, ex.getMessage());
         }
     }
+
+    /**
+     * Moves entries from the old single {@code EVENT_CACHE} hash into per-event keys and drops the
+     * hash. Retried until it completes once, since Redis may not be up when the gateway starts.
+     */
+    @Scheduled(fixedDelayString = "${event.cache.legacy-migration-interval:30s}")
+    public void migrateLegacyHash() {
+        if (legacyHashMigrated || !circuitBreaker.isClosed()) return;
+
+        HashOperations<String, String, byte[]> legacy = eventCacheRedisTemplate.opsForHash();
+        int migrated = 0;
+        try (Cursor<Map.Entry<String, byte[]>> cursor =
+                     legacy.scan(LEGACY_HASH_KEY, ScanOptions.scanOptions().count(LEGACY_MIGRATION_BATCH).build())) {
+            List<Event> batch = new ArrayList<>(LEGACY_MIGRATION_BATCH);
+            while (cursor.hasNext()) {
+                Map.Entry<String, byte[]> entry = cursor.next();
+                Event event = decode(null, entry.getValue());
+                if (event != null) {
+                    batch.add(event);
+                }
+                if (batch.size() == LEGACY_MIGRATION_BATCH) {
+                    addAll(batch);
+                    migrated += batch.size();
+                    batch.clear();
+                }
+            }
+            addAll(batch);
+            migrated += batch.size();
+
+            eventCacheRedisTemplate.unlink(LEGACY_HASH_KEY);
+            legacyHashMigrated = true;
+            if (migrated > 0) {
+                log.info("Migrated {} events from the legacy '{}' hash to per-event keys", migrated, LEGACY_HASH_KEY);
+            }
+        } catch (RuntimeException ex) {
+            log.debug("Legacy event cache migration not completed: {}", ex.getMessage());
+        }
+    }
+
+    // runs under the same per-key lock as applyDelete, so the tombstone check cannot race the delete
+    private void putNear(Event event) {
+        nearCache.asMap().compute(event.getId(), (id, current) -> {
+            Long deletedAt = nearTombstones.getIfPresent(id);
+            if (deletedAt != null && event.getVersion() < deletedAt) {
+                return current;
+            }
+            return current == null || event.getVersion() >= current.getVersion() ? event : current;
+        });
+    }
+
+    private String key(Long id) {
+        return keyPrefix + id;
+    }
+
+    // spreads expiry so entries filled together do not all miss at the same moment
+    private Duration nextTtl() {
+        double factor = 1 + ttlJitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(Math.max(1000, (long) (ttlMillis * factor)));
+    }
+
+    private boolean setIfNewer(Event event) {
+        return executeSetIfNewer(key(event.getId()), codec.encode(event), event.getVersion(), nextTtl());
+    }
+
+    private boolean executeSetIfNewer(String key, byte[] value, long version, Duration ttl) {
+        Long written = redisSetIfNewerTimer.record(() -> eventCacheRedisTemplate.execute(SET_IF_NEWER, List.of(key),
+                value,
+                String.valueOf(version).getBytes(StandardCharsets.UTF_8),
+                String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8)));
+        return written != null && written == 1;
+    }
+
+    private void addAll(Collection<Event> events) {
+        if (events.isEmpty()) return;
+        redisWriteTimer.record(() -> writeAll(events));
+    }
+
+    private void writeAll(Collection<Event> events) {
+        if (!pipelineWrites) {
+            for (Event event : events) {
+                valueOperations.setIfAbsent(key(event.getId()), codec.encode(event), nextTtl());
+            }
+            return;
+        }
+
+        eventCacheRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Event event : events) {
+                connection.stringCommands().set(
+                        key(event.getId()).getBytes(StandardCharsets.UTF_8),
+                        codec.encode(event),
+                        Expiration.from(nextTtl()),
+                        SetOption.ifAbsent());
+            }
+            return null;
+        });
+    }
+
+    private Event decode(Long id, byte[] bytes) {
+        try {
+            return codec.decode(bytes);
+        } catch (SerializationException ex) {
+            log.warn("Ignoring unreadable cache entry for event id={}: {}", id, ex.getMessage());
+            return null;
+        }
+    }
 }
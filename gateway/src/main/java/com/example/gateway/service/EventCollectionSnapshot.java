@@ -0,0 +1,87 @@
+package com.example.gateway.service;
+
+import com.example.grpc.GetAllEventsResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the serialized {@code GET /events} response until the domain reports a newer collection
+ * version through a change event, or until the snapshot is older than its TTL. The TTL only bounds
+ * how long a lost change event can keep a stale list alive.
+ */
+@Service
+public class EventCollectionSnapshot {
+
+    public record Snapshot(long version, byte[] body, long builtAtNanos) {
+
+        public String etag() {
+            return "\"c" + version + "\"";
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+    private final AtomicLong knownVersion = new AtomicLong();
+    private final SingleFlight<Boolean, Snapshot> rebuilds = new SingleFlight<>();
+    private final Counter hits;
+    private final Counter rebuildCounter;
+    private volatile Snapshot current;
+
+    public EventCollectionSnapshot(ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${event.collection.snapshot-ttl:30s}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("event.collection.snapshot.hits")
+                .description("GET /events responses served from the snapshot")
+                .register(meterRegistry);
+        this.rebuildCounter = Counter.builder("event.collection.snapshot.rebuilds")
+                .description("Snapshots rebuilt from the domain service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a collection version seen in a change event; snapshots older than it are no longer served.
+     */
+    public void observe(long collectionVersion) {
+        knownVersion.accumulateAndGet(collectionVersion, Math::max);
+    }
+
+    /**
+     * Returns the current snapshot, rebuilding it with {@code loader} if it is stale. Concurrent
+     * callers share one rebuild.
+     */
+    public CompletableFuture<Snapshot> get(Supplier<CompletableFuture<GetAllEventsResponse>> loader) {
+        Snapshot snapshot = current;
+        if (snapshot != null
+                && snapshot.version() >= knownVersion.get()
+                && System.nanoTime() - snapshot.builtAtNanos() < ttlNanos) {
+            hits.increment();
+            return CompletableFuture.completedFuture(snapshot);
+        }
+        return rebuilds.execute(Boolean.TRUE, () -> loader.get().thenApply(this::store));
+    }
+
+    private Snapshot store(GetAllEventsResponse response) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(response.getEventsList());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialize event collection", ex);
+        }
+        Snapshot snapshot = new Snapshot(response.getCollectionVersion(), body, System.nanoTime());
+        observe(snapshot.version());
+        current = snapshot;
+        rebuildCounter.increment();
+        return snapshot;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.gateway.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Component
+public class RedisCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean halfOpenTrialInFlight = new AtomicBoolean();
+    private volatile long openedAt;
+
+    public RedisCircuitBreaker(RedisTemplate<String, Object> redisTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${event.cache.redis.circuit.failure-threshold:3}") int failureThreshold,
+                               @Value("${event.cache.redis.circuit.open-duration:5s}") Duration openDuration) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+
+        for (State s : State.values()) {
+            Gauge.builder("redis.circuit.state", state, current -> current.get() == s ? 1 : 0)
+                    .tag("state", s.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean allowRequest() {
+        return switch (state.get()) {
+            case CLOSED -> true;
+            case HALF_OPEN -> halfOpenTrialInFlight.compareAndSet(false, true);
+            case OPEN -> false;
+        };
+    }
+
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.get() != State.CLOSED) {
+            transition(State.HALF_OPEN, State.CLOSED);
+        }
+    }
+
+    public void recordFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.OPEN);
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            transition(State.CLOSED, State.OPEN);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${event.cache.redis.circuit.probe-interval:1s}")
+    public void probe() {
+        if (state.get() == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) return;
+            transition(State.OPEN, State.HALF_OPEN);
+        }
+
+        try {
+            redisTemplate.execute(RedisConnection::ping, true);
+            recordSuccess();
+        } catch (Exception ex) {
+            log.debug("Redis health probe failed: {}", ex.getMessage());
+            recordFailure();
+        }
+    }
+
+    private void transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) return;
+
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (to != State.HALF_OPEN) {
+            halfOpenTrialInFlight.set(false);
+        }
+        consecutiveFailures.set(0);
+
+        Counter.builder("redis.circuit.transitions")
+                .tag("from", from.name().toLowerCase())
+                .tag("to", to.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+
+        if (to == State.OPEN) {
+            log.warn("Redis circuit breaker opened, cache calls are short-circuited");
+        } else {
+            log.info("Redis circuit breaker transitioned {} -> {}", from, to);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.gateway.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RequestStatus {
+
+    public enum State { PENDING, SUCCEEDED, FAILED }
+
+    private final String requestId;
+    private final String operation;
+    private final State status;
+    private final Long eventId;
+    private final Long version;
+    private final String error;
+
+    public RequestStatus(String requestId, String operation, State status, Long eventId, Long version, String error) {
+        this.requestId = requestId;
+        this.operation = operation;
+        this.status = status;
+        this.eventId = eventId;
+        this.version = version;
+        this.error = error;
+    }
+
+    public static RequestStatus pending(String requestId, String operation, Long eventId) {
+        return new RequestStatus(requestId, operation, State.PENDING, eventId, null, null);
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public State getStatus() {
+        return status;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return status != State.PENDING;
+    }
+}
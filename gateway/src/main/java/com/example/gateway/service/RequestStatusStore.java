@@ -0,0 +1,77 @@
+package com.example.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the outcome of queued writes for a bounded time so that clients can poll or wait for
+ * them by request id. Pending entries are only known to the instance that accepted the request;
+ * results are broadcast to every instance.
+ */
+@Service
+public class RequestStatusStore {
+
+    private final Cache<String, RequestStatus> statuses;
+    private final Cache<String, CompletableFuture<RequestStatus>> waiters;
+
+    public RequestStatusStore(MeterRegistry meterRegistry,
+                              @Value("${event.requests.status-ttl:5m}") Duration statusTtl,
+                              @Value("${event.requests.max-size:100000}") long maxSize) {
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(statusTtl)
+                .recordStats()
+                .build();
+        this.waiters = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(statusTtl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, statuses, "requestStatuses");
+    }
+
+    public void markPending(String requestId, String operation, Long eventId) {
+        // the result may already have arrived if the domain service was quick
+        statuses.asMap().putIfAbsent(requestId, RequestStatus.pending(requestId, operation, eventId));
+    }
+
+    public void complete(RequestStatus result) {
+        statuses.put(result.getRequestId(), result);
+        CompletableFuture<RequestStatus> waiter = waiters.asMap().remove(result.getRequestId());
+        if (waiter != null) {
+            waiter.complete(result);
+        }
+    }
+
+    public RequestStatus get(String requestId) {
+        return statuses.getIfPresent(requestId);
+    }
+
+    /**
+     * Completes with the final status as soon as it arrives, or with the current one after {@code timeout}.
+     */
+    public CompletableFuture<RequestStatus> await(String requestId, Duration timeout) {
+        RequestStatus current = get(requestId);
+        if (current == null || current.isDone() || timeout.isZero()) {
+            return CompletableFuture.completedFuture(current);
+        }
+
+        CompletableFuture<RequestStatus> waiter = waiters.asMap().computeIfAbsent(requestId, id -> new CompletableFuture<>());
+        // a result that landed between the first check and registering the waiter would be missed otherwise
+        current = get(requestId);
+        if (current != null && current.isDone()) {
+            waiters.asMap().remove(requestId, waiter);
+            waiter.complete(current);
+        }
+        return waiter.copy()
+                .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(result -> result != null ? result : get(requestId));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.gateway.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gives every request a trace id, taken from the {@code X-Trace-Id} header when the client sent a
+ * usable one, and keeps it in the MDC while the request thread works on it. Calls to the domain
+ * service made from that thread carry it along.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "tracing.trace-id.enabled", havingValue = "true", matchIfMissing = true)
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String traceId = request.getHeader(TraceIds.HTTP_HEADER);
+        if (traceId == null || !VALID.matcher(traceId).matches()) {
+            traceId = newTraceId();
+        }
+        response.setHeader(TraceIds.HTTP_HEADER, traceId);
+        MDC.put(TraceIds.MDC_KEY, traceId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(TraceIds.MDC_KEY);
+        }
+    }
+
+    private static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return String.format("%016x%016x", random.nextLong(), random.nextLong());
+    }
+}
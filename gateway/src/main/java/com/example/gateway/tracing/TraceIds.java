@@ -0,0 +1,18 @@
+package com.example.gateway.tracing;
+
+import io.grpc.Metadata;
+
+/**
+ * Names under which a request's trace id travels: the MDC for log lines, the HTTP header clients
+ * may send and receive, and the gRPC and AMQP headers read by the domain service.
+ */
+public final class TraceIds {
+
+    public static final String MDC_KEY = "traceId";
+    public static final String HTTP_HEADER = "X-Trace-Id";
+    public static final String AMQP_HEADER = "x-trace-id";
+    public static final Metadata.Key<String> GRPC_KEY = Metadata.Key.of("x-trace-id", Metadata.ASCII_STRING_MARSHALLER);
+
+    private TraceIds() {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.gateway.controller;
+
+import com.example.gateway.rabbit.EventWriteBuffer;
+import com.example.gateway.service.EventCacheService;
+import com.example.gateway.service.EventCollectionSnapshot;
+import com.example.gateway.service.RequestStatusStore;
+import com.example.grpc.EventServiceGrpc;
+import com.example.grpc.GetEventsPageRequest;
+import com.example.grpc.GetEventsPageResponse;
+import com.google.common.util.concurrent.Futures;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(EventController.class)
+class EventControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockitoBean
+    private EventServiceGrpc.EventServiceBlockingStub blockingStub;
+    @MockitoBean
+    private EventServiceGrpc.EventServiceFutureStub futureStub;
+    @MockitoBean
+    private EventWriteBuffer writeBuffer;
+    @MockitoBean
+    private EventCacheService eventCacheService;
+    @MockitoBean
+    private RequestStatusStore requestStatusStore;
+    @MockitoBean
+    private EventCollectionSnapshot collectionSnapshot;
+
+    @Test
+    void afterIdAloneReturnsADefaultSizedPage() throws Exception {
+        when(futureStub.getEventsPage(any())).thenReturn(Futures.immediateFuture(GetEventsPageResponse.getDefaultInstance()));
+
+        MvcResult result = mvc.perform(get("/events").param("afterId", "100")).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andExpect(jsonPath("$.hasMore").value(false));
+
+        ArgumentCaptor<GetEventsPageRequest> request = ArgumentCaptor.forClass(GetEventsPageRequest.class);
+        verify(futureStub).getEventsPage(request.capture());
+        assertEquals(100, request.getValue().getAfterId());
+        assertEquals(100, request.getValue().getLimit());
+        verifyNoInteractions(collectionSnapshot);
+    }
+
+    @Test
+    void idsCannotBeCombinedWithPaging() throws Exception {
+        MvcResult result = mvc.perform(get("/events").param("ids", "1,2").param("limit", "5")).andReturn();
+
+        mvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+        verifyNoInteractions(futureStub, eventCacheService);
+    }
+
+    @Test
+    void createRequiresEveryField() throws Exception {
+        mvc.perform(post("/events").contentType("application/json").content("{\"name\":\"n\",\"date\":\"2025-01-01\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Missing field: location"));
+        verifyNoInteractions(writeBuffer);
+    }
+
+    @Test
+    void updateRequiresEveryField() throws Exception {
+        mvc.perform(put("/events/7").contentType("application/json").content("{\"name\":\"n\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Missing field: date"));
+        verifyNoInteractions(writeBuffer);
+    }
+}
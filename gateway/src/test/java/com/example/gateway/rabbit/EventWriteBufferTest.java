@@ -0,0 +1,78 @@
+package com.example.gateway.rabbit;
+
+import com.example.gateway.rabbit.EventWriteBuffer.PendingWrite;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventWriteBufferTest {
+
+    @Test
+    void foldsSuccessivePatchesOfOneEvent() {
+        List<PendingWrite> merged = EventWriteBuffer.coalesce(List.of(
+                write("r1", "PATCH", 1L, "name", "first", "location", "Berlin"),
+                write("r2", "PATCH", 1L, "name", "second", "location", null)));
+
+        assertEquals(1, merged.size());
+        Map<String, Object> message = merged.get(0).toMap();
+        assertEquals("r1", message.get("requestId"));
+        assertEquals(List.of("r2"), message.get("coalescedRequestIds"));
+        assertEquals(Map.of("id", 1L, "name", "second", "location", "Berlin"), message.get("event"));
+    }
+
+    @Test
+    void neverFoldsAnUpdate() {
+        List<PendingWrite> merged = EventWriteBuffer.coalesce(List.of(
+                write("r1", "PATCH", 1L, "name", "a"),
+                write("r2", "UPDATE", 1L, "name", "b", "date", "2025-01-01", "location", "Rome"),
+                write("r3", "UPDATE", 1L, "name", "c", "date", "2025-01-02", "location", "Oslo"),
+                write("r4", "PATCH", 1L, "name", "d")));
+
+        assertEquals(List.of("r1", "r2", "r3", "r4"), requestIds(merged));
+        assertEquals(Map.of("id", 1L, "name", "c", "date", "2025-01-02", "location", "Oslo"),
+                merged.get(2).toMap().get("event"));
+    }
+
+    @Test
+    void deleteEndsFolding() {
+        List<PendingWrite> merged = EventWriteBuffer.coalesce(List.of(
+                write("r1", "PATCH", 1L, "name", "a"),
+                write("r2", "DELETE", 1L),
+                write("r3", "PATCH", 1L, "name", "b")));
+
+        assertEquals(List.of("r1", "r2", "r3"), requestIds(merged));
+        assertNull(merged.get(0).toMap().get("coalescedRequestIds"));
+    }
+
+    @Test
+    void keepsCreatesAndOrderAcrossEvents() {
+        List<PendingWrite> merged = EventWriteBuffer.coalesce(List.of(
+                write("r1", "CREATE", null, "name", "new"),
+                write("r2", "PATCH", 2L, "name", "a"),
+                write("r3", "CREATE", null, "name", "other"),
+                write("r4", "PATCH", 1L, "name", "b"),
+                write("r5", "PATCH", 2L, "location", "Rome")));
+
+        assertEquals(List.of("r1", "r2", "r3", "r4"), requestIds(merged));
+        assertEquals(List.of("r5"), merged.get(1).toMap().get("coalescedRequestIds"));
+    }
+
+    private static PendingWrite write(String requestId, String operation, Long eventId, Object... fields) {
+        Map<String, Object> eventData = new HashMap<>();
+        if (eventId != null) {
+            eventData.put("id", eventId);
+        }
+        for (int i = 0; i < fields.length; i += 2) {
+            eventData.put((String) fields[i], fields[i + 1]);
+        }
+        return new PendingWrite(requestId, operation, eventId, eventData);
+    }
+
+    private static List<Object> requestIds(List<PendingWrite> writes) {
+        return writes.stream().map(write -> write.toMap().get("requestId")).toList();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.gateway.service;
+
+import com.example.gateway.config.JacksonConfig;
+import com.example.grpc.Event;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCacheCodecTest {
+
+    private final EventCacheCodec codec = codec(EventCacheCodec.Format.PROTOBUF);
+    private final Event event = Event.newBuilder()
+            .setId(42).setName("Concert").setDate("2025-06-01").setLocation("Berlin").setVersion(3).build();
+
+    @Test
+    void decodesLegacyProtobuf() {
+        byte[] payload = event.toByteArray();
+        byte[] legacy = new byte[payload.length + 1];
+        legacy[0] = 0x01;
+        System.arraycopy(payload, 0, legacy, 1, payload.length);
+
+        assertEquals(event, codec.decode(legacy));
+        assertTrue(codec.isStale(legacy));
+    }
+
+    @Test
+    void decodesLegacyDeflatedProtobuf() {
+        byte[] deflated = deflate(event.toByteArray());
+        byte[] legacy = new byte[deflated.length + 1];
+        legacy[0] = 0x02;
+        System.arraycopy(deflated, 0, legacy, 1, deflated.length);
+
+        assertEquals(event, codec.decode(legacy));
+        assertTrue(codec.isStale(legacy));
+    }
+
+    @Test
+    void decodesLegacyTypedJson() {
+        byte[] legacy = ("{\"@class\":\"com.example.gateway.model.Event\",\"id\":[\"java.lang.Long\",42],"
+                + "\"name\":\"Concert\",\"date\":\"2025-06-01\",\"location\":\"Berlin\",\"version\":3}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(event, codec.decode(legacy));
+        assertTrue(codec.isStale(legacy));
+    }
+
+    @Test
+    void decodesLegacyJsonWithoutVersion() {
+        byte[] legacy = "{\"id\":42,\"name\":\"Concert\",\"date\":\"2025-06-01\",\"location\":\"Berlin\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(event.toBuilder().setVersion(0).build(), codec.decode(legacy));
+    }
+
+    @Test
+    void roundTripsCurrentFormats() {
+        assertEquals(event, codec.decode(codec.encode(event)));
+        assertFalse(codec.isStale(codec.encode(event)));
+
+        EventCacheCodec json = codec(EventCacheCodec.Format.JSON);
+        assertEquals(event, json.decode(json.encode(event)));
+        assertTrue(codec.isStale(json.encode(event)));
+    }
+
+    @Test
+    void tombstoneDecodesAsMissing() {
+        assertNull(codec.decode(codec.encodeTombstone(4)));
+        assertFalse(codec.isStale(codec.encodeTombstone(4)));
+    }
+
+    private static EventCacheCodec codec(EventCacheCodec.Format format) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JacksonConfig().grpcEventModule());
+        return new EventCacheCodec(objectMapper, new SimpleMeterRegistry(), format, 512);
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(payload);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.gateway.service;
+
+import com.example.grpc.Event;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EventCacheServiceTest {
+
+    private EventCacheService cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RedisTemplate<String, byte[]> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        // an open breaker keeps every call on the near cache
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(mock(RedisTemplate.class), registry, 1, Duration.ofMinutes(1));
+        breaker.recordFailure();
+        EventCacheCodec codec = new EventCacheCodec(new ObjectMapper(), registry, EventCacheCodec.Format.PROTOBUF, 512);
+        cache = new EventCacheService(redisTemplate, codec, breaker, registry, 100, Duration.ofMinutes(1),
+                "event:", Duration.ofMinutes(10), 0.1, Duration.ofMinutes(1), "");
+    }
+
+    @Test
+    void lateReadDoesNotRestoreDeletedEvent() {
+        Event read = event(1, 3);
+        cache.cacheEvent(read);
+        cache.applyDelete(1, 3);
+
+        cache.cacheEvent(read);
+        cache.cacheEvents(List.of(read));
+
+        assertNull(cache.getCachedEvent(1L));
+    }
+
+    @Test
+    void keepsNewestVersion() {
+        cache.applyUpsert(event(1, 5));
+        cache.cacheEvent(event(1, 4));
+
+        assertEquals(5, cache.getCachedEvent(1L).getVersion());
+    }
+
+    private static Event event(long id, long version) {
+        return Event.newBuilder().setId(id).setName("e" + id).setVersion(version).build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.gateway.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RedisCircuitBreakerTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        RedisCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordFailure();
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    void probeWaitsForOpenDuration() {
+        RedisCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        open(breaker);
+
+        breaker.probe();
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void halfOpenAdmitsOneTrialAndClosesOnSuccessfulProbe() {
+        RedisCircuitBreaker breaker = breaker(Duration.ZERO);
+        open(breaker);
+        List<Object> duringProbe = new ArrayList<>();
+        when(redisTemplate.execute(any(RedisCallback.class), eq(true))).thenAnswer(invocation -> {
+            duringProbe.add(breaker.getState());
+            duringProbe.add(breaker.allowRequest());
+            duringProbe.add(breaker.allowRequest());
+            return "PONG";
+        });
+
+        breaker.probe();
+
+        assertEquals(List.of(RedisCircuitBreaker.State.HALF_OPEN, true, false), duringProbe);
+        assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedProbeReopens() {
+        RedisCircuitBreaker breaker = breaker(Duration.ZERO);
+        open(breaker);
+        when(redisTemplate.execute(any(RedisCallback.class), eq(true)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        breaker.probe();
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedTrialReopens() {
+        RedisCircuitBreaker breaker = breaker(Duration.ZERO);
+        open(breaker);
+        doAnswer(invocation -> {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+            throw new RedisConnectionFailureException("down");
+        }).when(redisTemplate).execute(any(RedisCallback.class), eq(true));
+
+        breaker.probe();
+
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private RedisCircuitBreaker breaker(Duration openDuration) {
+        return new RedisCircuitBreaker(redisTemplate, new SimpleMeterRegistry(), 3, openDuration);
+    }
+
+    private static void open(RedisCircuitBreaker breaker) {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.gateway.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> flight = new SingleFlight<>();
+
+    @Test
+    void concurrentCallersShareOneLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = flight.execute(1L, () -> {
+            loads.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> second = flight.execute(1L, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        pending.complete("value");
+
+        assertEquals(1, loads.get());
+        assertEquals("value", first.join());
+        assertEquals("value", second.join());
+    }
+
+    @Test
+    void failureReachesEveryWaiter() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute(1L, () -> pending);
+        CompletableFuture<String> second = flight.execute(1L, () -> pending);
+
+        IllegalStateException error = new IllegalStateException("boom");
+        pending.completeExceptionally(error);
+
+        assertSame(error, assertThrows(CompletionException.class, first::join).getCause());
+        assertSame(error, assertThrows(CompletionException.class, second::join).getCause());
+    }
+
+    @Test
+    void loaderThatThrowsFailsTheCallAndFreesTheKey() {
+        CompletableFuture<String> failed = flight.execute(1L, () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertTrue(failed.isCompletedExceptionally());
+
+        assertEquals("retry", flight.execute(1L, () -> CompletableFuture.completedFuture("retry")).join());
+    }
+
+    @Test
+    void completedLoadIsNotReused() {
+        assertEquals("a", flight.execute(1L, () -> CompletableFuture.completedFuture("a")).join());
+        assertEquals("b", flight.execute(1L, () -> CompletableFuture.completedFuture("b")).join());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.loadtest;
+
+import org.apache.qpid.server.SystemLauncher;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An in-memory AMQP 0-9-1 broker (Qpid Broker-J) standing in for RabbitMQ, with a single
+ * guest/guest user and the default virtual host.
+ */
+class EmbeddedBroker implements AutoCloseable {
+
+    private final SystemLauncher launcher = new SystemLauncher();
+    private final int port;
+
+    EmbeddedBroker(int port) {
+        this.port = port;
+    }
+
+    void start() throws Exception {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put("initialConfigurationLocation", resource("qpid-config.json"));
+        attributes.put("initialSystemPropertiesLocation", resource("qpid-system.properties"));
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", Map.of(
+                "qpid.amqp_port", String.valueOf(port),
+                // Broker-J has no TTL or dead-lettering arguments; the domain's retry queues become plain queues
+                "queue.behaviourOnUnknownDeclareArgument", "IGNORE",
+                "qpid.work_dir", Files.createTempDirectory("qpid-work").toString()));
+        launcher.startup(attributes);
+    }
+
+    // Broker-J only understands classpath: URLs when launched through its own Main
+    private static String resource(String name) {
+        URL url = EmbeddedBroker.class.getClassLoader().getResource(name);
+        if (url == null) {
+            throw new IllegalStateException(name + " is missing from the classpath");
+        }
+        return url.toExternalForm();
+    }
+
+    int port() {
+        return port;
+    }
+
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.loadtest;
+
+import com.example.domain.AppConfig;
+import com.example.domain.Event;
+import com.example.domain.EventMessage;
+import com.example.domain.EventRepository;
+import com.example.domain.EventServiceGrpcImpl;
+import com.example.domain.GrpcServerFactory;
+import com.example.domain.HibernateUtil;
+import com.example.domain.RabbitConsumer;
+import com.example.domain.SearchIndexInitializer;
+import io.grpc.Server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The real domain service, wired as in its {@code Main} but on an in-memory H2 database in
+ * PostgreSQL mode, a free gRPC port and the embedded broker.
+ */
+class EmbeddedDomain implements AutoCloseable {
+
+    private static final String[] LOCATIONS = {"Berlin", "Paris", "London", "Madrid", "Rome", "Vienna", "Prague", "Lisbon"};
+
+    private final int grpcPort;
+    private final int brokerPort;
+    private final EventRepository repository = new EventRepository();
+    private Server server;
+
+    EmbeddedDomain(int grpcPort, int brokerPort) {
+        this.grpcPort = grpcPort;
+        this.brokerPort = brokerPort;
+    }
+
+    void start() throws IOException {
+        setIfAbsent("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        setIfAbsent("spring.datasource.username", "sa");
+        setIfAbsent("spring.datasource.password", "");
+        setIfAbsent("db.search.trigram-indexes", "false");
+        loadDomainDefaults();
+        System.setProperty("rabbit.host", "127.0.0.1");
+        System.setProperty("rabbit.port", String.valueOf(brokerPort));
+        System.setProperty("grpc.server.port", String.valueOf(grpcPort));
+
+        HibernateUtil.getSessionFactory();
+        SearchIndexInitializer.initialize(repository);
+
+        server = GrpcServerFactory.create(new EventServiceGrpcImpl(repository)).start();
+
+        Thread consumerThread = new Thread(new RabbitConsumer(repository), "RabbitConsumerThread");
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    /**
+     * Inserts {@code count} events directly through the repository and returns the ids of all events.
+     */
+    List<Long> seed(int count) {
+        List<EventMessage> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new EventMessage("CREATE", "seed-" + UUID.randomUUID(), null,
+                    "Seed event " + i,
+                    LocalDate.of(2025, 1, 1).plusDays(i % 365).toString(),
+                    LOCATIONS[i % LOCATIONS.length]));
+            if (batch.size() == 500 || i == count - 1) {
+                repository.applyAll(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        return repository.findAll().stream().map(Event::getId).toList();
+    }
+
+    int grpcPort() {
+        return grpcPort;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (server == null) {
+            return;
+        }
+        server.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+        HibernateUtil.getSessionFactory().close();
+    }
+
+    // the gateway's application.properties shadows the domain's on a shared classpath, so the
+    // domain's own defaults are read from its jar and handed to AppConfig as system properties
+    private static void loadDomainDefaults() throws IOException {
+        URL domainJar = AppConfig.class.getProtectionDomain().getCodeSource().getLocation();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{domainJar}, null);
+             InputStream in = loader.getResourceAsStream("application.properties")) {
+            if (in == null) {
+                return;
+            }
+            Properties defaults = new Properties();
+            defaults.load(in);
+            defaults.stringPropertyNames().forEach(key -> setIfAbsent(key, defaults.getProperty(key)));
+        }
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+}
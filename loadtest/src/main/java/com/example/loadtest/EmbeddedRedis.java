@@ -0,0 +1,37 @@
+package com.example.loadtest;
+
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+
+/**
+ * A real redis-server process, since the gateway's cache and status store rely on Lua scripts.
+ */
+class EmbeddedRedis implements AutoCloseable {
+
+    private final RedisServer server;
+    private final int port;
+
+    EmbeddedRedis(int port) throws IOException {
+        this.port = port;
+        this.server = RedisServer.newRedisServer()
+                .port(port)
+                .bind("127.0.0.1")
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+    }
+
+    void start() throws IOException {
+        server.start();
+    }
+
+    int port() {
+        return port;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop();
+    }
+}
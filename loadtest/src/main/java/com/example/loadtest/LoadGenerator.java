@@ -0,0 +1,144 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed rate regardless of how fast responses come back (open loop). Latency is
+ * measured from when a request was due rather than when it was sent, so a stalled server is charged
+ * for the requests queued behind it instead of hiding them (coordinated omission).
+ */
+class LoadGenerator {
+
+    static final class EndpointStats {
+
+        private final Recorder latencyMicros = new Recorder(3);
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private Histogram histogram;
+
+        private void record(long latencyNanos, int status) {
+            latencyMicros.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+            if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            } else {
+                succeeded.increment();
+            }
+        }
+
+        Histogram histogram() {
+            if (histogram == null) {
+                histogram = latencyMicros.getIntervalHistogram();
+            }
+            return histogram;
+        }
+
+        long succeeded() {
+            return succeeded.sum();
+        }
+
+        long clientErrors() {
+            return clientErrors.sum();
+        }
+
+        long serverErrors() {
+            return serverErrors.sum();
+        }
+
+        long failed() {
+            return failed.sum();
+        }
+    }
+
+    private final HttpClient client;
+    private final URI baseUri;
+    private final RequestMix mix;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+
+    LoadGenerator(HttpClient client, URI baseUri, RequestMix mix, int maxInFlight, Duration requestTimeout) {
+        this.client = client;
+        this.baseUri = baseUri;
+        this.mix = mix;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Runs for {@code warmup} plus {@code duration} at {@code rate} requests per second and returns
+     * statistics for requests due during {@code duration}, keyed by template name.
+     */
+    Map<String, EndpointStats> run(double rate, Duration warmup, Duration duration) throws InterruptedException {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        mix.templates().forEach(template -> stats.put(template.name(), new EndpointStats()));
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long due = start + i * intervalNanos;
+            if (due >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            send(mix.next(), due, due >= measureFrom ? stats : null);
+        }
+
+        // let the last requests finish before reading the histograms
+        if (!inFlight.tryAcquire(maxInFlight, requestTimeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+            System.err.println("Some requests were still outstanding when the run ended");
+        }
+        return stats;
+    }
+
+    private void send(RequestMix.Request request, long due, Map<String, EndpointStats> stats) {
+        HttpRequest.BodyPublisher body = request.body() != null
+                ? HttpRequest.BodyPublishers.ofString(request.body())
+                : HttpRequest.BodyPublishers.noBody();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(request.path()))
+                .timeout(requestTimeout)
+                .method(request.template().method(), body);
+        if (request.body() != null) {
+            builder.header("Content-Type", "application/json");
+        }
+
+        client.sendAsync(builder.build(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, ex) -> {
+                    long latency = System.nanoTime() - due;
+                    inFlight.release();
+                    if (stats == null) {
+                        return;
+                    }
+                    EndpointStats endpoint = stats.get(request.template().name());
+                    if (ex != null) {
+                        endpoint.failed.increment();
+                    } else {
+                        endpoint.record(latency, response.statusCode());
+                    }
+                });
+    }
+}
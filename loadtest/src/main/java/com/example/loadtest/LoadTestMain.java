@@ -0,0 +1,115 @@
+package com.example.loadtest;
+
+import com.example.gateway.GatewayApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Starts Redis, an AMQP broker, the domain service and the gateway in this JVM, seeds events and
+ * drives the gateway's HTTP API with a weighted request mix. Nothing outside the process is needed.
+ *
+ * <pre>
+ * --rate=500            requests per second
+ * --duration=60s        measured run length
+ * --warmup=10s          unmeasured run before it
+ * --events=1000         events seeded before the run
+ * --mix=file.jsonl      request mix, defaults to the bundled request-mix.jsonl
+ * --max-in-flight=1000  outstanding requests before the generator waits
+ * --timeout=10s         per-request timeout
+ * --histograms=dir      also write one .hgrm percentile distribution per endpoint
+ * </pre>
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        // a distinct name, because the domain jar ships a logback.xml of its own
+        System.setProperty("logback.configurationFile", "loadtest-logback.xml");
+        Map<String, String> options = parseOptions(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        int events = Integer.parseInt(options.getOrDefault("events", "1000"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "1000"));
+        Duration timeout = DurationStyle.detectAndParse(options.getOrDefault("timeout", "10s"));
+
+        try (EmbeddedRedis redis = new EmbeddedRedis(freePort());
+             EmbeddedBroker broker = new EmbeddedBroker(freePort());
+             EmbeddedDomain domain = new EmbeddedDomain(freePort(), broker.port())) {
+            redis.start();
+            broker.start();
+            domain.start();
+            List<Long> ids = domain.seed(events);
+            System.clearProperty("logback.configurationFile");
+
+            ConfigurableApplicationContext gateway = new SpringApplicationBuilder(GatewayApplication.class)
+                    .run("--server.port=0",
+                            "--spring.redis.host=127.0.0.1",
+                            "--spring.redis.port=" + redis.port(),
+                            "--spring.rabbitmq.host=127.0.0.1",
+                            "--spring.rabbitmq.port=" + broker.port(),
+                            "--domain.grpc.host=127.0.0.1",
+                            "--domain.grpc.port=" + domain.grpcPort(),
+                            "--logging.config=classpath:loadtest-logback.xml",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.example.gateway=WARN");
+            ExecutorService httpExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                int gatewayPort = ((WebServerApplicationContext) gateway).getWebServer().getPort();
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(httpExecutor)
+                        .build();
+                RequestMix mix = RequestMix.load(options.containsKey("mix") ? Path.of(options.get("mix")) : null,
+                        ids, new ObjectMapper());
+
+                System.out.printf("Seeded %d events; running %.0f req/s for %s after %s warmup%n",
+                        ids.size(), rate, duration, warmup);
+                LoadGenerator generator = new LoadGenerator(client, URI.create("http://127.0.0.1:" + gatewayPort),
+                        mix, maxInFlight, timeout);
+                Report report = new Report(generator.run(rate, warmup, duration), duration);
+                report.print(System.out);
+                if (options.containsKey("histograms")) {
+                    report.writeHistograms(Path.of(options.get("histograms")));
+                }
+            } finally {
+                httpExecutor.shutdownNow();
+                gateway.close();
+            }
+        }
+        // the domain's consumer lanes are not daemon threads
+        System.exit(0);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
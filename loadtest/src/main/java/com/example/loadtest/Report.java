@@ -0,0 +1,76 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Prints throughput and latency percentiles per endpoint and, optionally, writes each endpoint's
+ * full percentile distribution in HdrHistogram's {@code .hgrm} format for plotting.
+ */
+class Report {
+
+    private static final String ROW = "%-24s %9s %9s %9s %9s %9s %9s %9s %7s %7s %7s%n";
+
+    private final Map<String, LoadGenerator.EndpointStats> stats;
+    private final Duration duration;
+
+    Report(Map<String, LoadGenerator.EndpointStats> stats, Duration duration) {
+        this.stats = stats;
+        this.duration = duration;
+    }
+
+    void print(PrintStream out) {
+        double seconds = duration.toMillis() / 1000.0;
+        out.printf(ROW, "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "5xx", "failed");
+
+        Histogram total = new Histogram(3);
+        long totalClientErrors = 0;
+        long totalServerErrors = 0;
+        long totalFailed = 0;
+        for (Map.Entry<String, LoadGenerator.EndpointStats> entry : stats.entrySet()) {
+            LoadGenerator.EndpointStats endpoint = entry.getValue();
+            Histogram histogram = endpoint.histogram();
+            total.add(histogram);
+            totalClientErrors += endpoint.clientErrors();
+            totalServerErrors += endpoint.serverErrors();
+            totalFailed += endpoint.failed();
+            row(out, entry.getKey(), histogram, seconds, endpoint.clientErrors(), endpoint.serverErrors(), endpoint.failed());
+        }
+        row(out, "total", total, seconds, totalClientErrors, totalServerErrors, totalFailed);
+    }
+
+    void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, LoadGenerator.EndpointStats> entry : stats.entrySet()) {
+            Path file = directory.resolve(entry.getKey().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().histogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static void row(PrintStream out, String name, Histogram histogram, double seconds,
+                            long clientErrors, long serverErrors, long failed) {
+        long count = histogram.getTotalCount();
+        out.printf(ROW, name, count,
+                String.format("%.1f", (count + failed) / seconds),
+                millis(histogram, 50),
+                millis(histogram, 90),
+                millis(histogram, 99),
+                millis(histogram, 99.9),
+                count == 0 ? "-" : String.format("%.2f", histogram.getMaxValue() / 1000.0),
+                clientErrors, serverErrors, failed);
+    }
+
+    private static String millis(Histogram histogram, double percentile) {
+        return histogram.getTotalCount() == 0
+                ? "-"
+                : String.format("%.2f", histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+}
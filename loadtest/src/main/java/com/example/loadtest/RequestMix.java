@@ -0,0 +1,125 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Weighted request templates, one JSON object per line: {@code name}, {@code method}, {@code path},
+ * {@code weight} and an optional JSON {@code body}. {@code {id}} is replaced with a random seeded
+ * event id and {@code {seq}} with a number unique to the run.
+ */
+class RequestMix {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(id|seq)}");
+
+    record Template(String name, String method, String path, String body, int weight) {
+    }
+
+    record Request(Template template, String path, String body) {
+    }
+
+    private final List<Template> templates;
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+    private final List<Long> ids;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private RequestMix(List<Template> templates, List<Long> ids) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("Request mix is empty");
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one event must be seeded");
+        }
+        this.templates = templates;
+        this.ids = ids;
+        this.cumulativeWeights = new int[templates.size()];
+        int total = 0;
+        for (int i = 0; i < templates.size(); i++) {
+            total += templates.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+        this.totalWeight = total;
+    }
+
+    static RequestMix load(Path file, List<Long> ids, ObjectMapper mapper) throws IOException {
+        if (file != null) {
+            try (InputStream in = Files.newInputStream(file)) {
+                return new RequestMix(parse(in, mapper), ids);
+            }
+        }
+        try (InputStream in = RequestMix.class.getClassLoader().getResourceAsStream("request-mix.jsonl")) {
+            if (in == null) {
+                throw new IllegalStateException("request-mix.jsonl is missing from the classpath");
+            }
+            return new RequestMix(parse(in, mapper), ids);
+        }
+    }
+
+    private static List<Template> parse(InputStream in, ObjectMapper mapper) throws IOException {
+        List<Template> templates = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node = mapper.readTree(line);
+            String method = node.path("method").asText("GET");
+            String path = node.path("path").asText(null);
+            int weight = node.path("weight").asInt(1);
+            if (path == null || weight <= 0) {
+                throw new IllegalArgumentException("Line " + lineNumber + " needs a path and a positive weight");
+            }
+            String body = node.hasNonNull("body") ? mapper.writeValueAsString(node.get("body")) : null;
+            templates.add(new Template(node.path("name").asText(method + " " + path), method, path, body, weight));
+        }
+        return templates;
+    }
+
+    List<Template> templates() {
+        return templates;
+    }
+
+    Request next() {
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        int index = 0;
+        while (cumulativeWeights[index] <= pick) {
+            index++;
+        }
+        Template template = templates.get(index);
+        return new Request(template, fill(template.path()), template.body() != null ? fill(template.body()) : null);
+    }
+
+    private String fill(String text) {
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        if (!matcher.find()) {
+            return text;
+        }
+        StringBuilder filled = new StringBuilder();
+        do {
+            String value = matcher.group(1).equals("id")
+                    ? String.valueOf(ids.get(ThreadLocalRandom.current().nextInt(ids.size())))
+                    : String.valueOf(sequence.incrementAndGet());
+            matcher.appendReplacement(filled, value);
+        } while (matcher.find());
+        matcher.appendTail(filled);
+        return filled.toString();
+    }
+}